@@ -1,14 +1,15 @@
 package org.madcoder.util.cache;
 
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import org.madcoder.core.KeyValue;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.time.Duration;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
@@ -18,13 +19,57 @@ import java.util.concurrent.Executors;
  */
 public class CacheUtils {
 
+    /**
+     * 异步刷新共用的线程池，使用守护线程
+     */
+    private static final ExecutorService RELOAD_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("cache-reload-%d").setDaemon(true).build());
+
     public static <K, V> LoadingCache<K, V> buildAsyncReloadingCache(Duration duration, CacheLoader<K, V> loader) {
         return CacheBuilder.newBuilder()
                 // 只阻塞当前数据加载线程，其他线程返回旧值
                 .refreshAfterWrite(duration)
                 // 通过 asyncReloading 实现全异步加载，包括 refreshAfterWrite 被阻塞的加载线程
-                .build(CacheLoader.asyncReloading(loader, Executors.newCachedThreadPool()));
+                .build(CacheLoader.asyncReloading(loader, RELOAD_EXECUTOR));
+
+    }
+
+    /**
+     * 创建异步刷新的缓存
+     *
+     * @param refreshAfterWrite 写入多久之后刷新，刷新期间其他线程返回旧值
+     * @param expireAfterWrite  写入多久之后过期，为 null 时不过期
+     * @param maximumSize       最大数量，小于等于 0 时不限制
+     * @param loader            加载器
+     * @return 缓存
+     */
+    public static <K, V> LoadingCache<K, V> buildAsyncReloadingCache(Duration refreshAfterWrite, Duration expireAfterWrite,
+                                                                     long maximumSize, CacheLoader<K, V> loader) {
+        CacheBuilder<Object, Object> builder = newBuilder(expireAfterWrite, maximumSize)
+                .refreshAfterWrite(refreshAfterWrite);
+        return builder.build(CacheLoader.asyncReloading(loader, RELOAD_EXECUTOR));
+    }
+
+    /**
+     * 创建缓存
+     *
+     * @param expireAfterWrite 写入多久之后过期，为 null 时不过期
+     * @param maximumSize      最大数量，小于等于 0 时不限制
+     * @return 缓存
+     */
+    public static <K, V> Cache<K, V> buildCache(Duration expireAfterWrite, long maximumSize) {
+        return newBuilder(expireAfterWrite, maximumSize).build();
+    }
 
+    private static CacheBuilder<Object, Object> newBuilder(Duration expireAfterWrite, long maximumSize) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        if (maximumSize > 0) {
+            builder.maximumSize(maximumSize);
+        }
+        return builder;
     }
 
 
@@ -8,8 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.function.*;
 import java.util.stream.Collectors;
 
 import static org.madcoder.util.collection.CollectionUtils.convertList;
@@ -66,6 +65,71 @@ public class ArrayUtils {
 
 
 
+    //单次遍历转换为指定类型的数组，generator 例如 String[]::new，空集合也能返回正确类型的数组
+    public static <T> T[] toTypedArray(Collection<T> from, IntFunction<T[]> generator) {
+        if (CollectionUtil.isEmpty(from)) {
+            return generator.apply(0);
+        }
+        return from.toArray(generator.apply(from.size()));
+    }
+
+    //单次遍历转换为另一类型的数组，不创建中间 List；与 convertList 一致，mapper 返回 null 的元素会被过滤
+    public static <T, V> V[] toTypedArray(Collection<T> from, Function<T, V> mapper, IntFunction<V[]> generator) {
+        if (CollectionUtil.isEmpty(from)) {
+            return generator.apply(0);
+        }
+        V[] result = generator.apply(from.size());
+        int size = 0;
+        for (T item : from) {
+            V value = mapper.apply(item);
+            if (value != null) {
+                result[size++] = value;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    //单次遍历转换为 long 数组，不装箱
+    public static <T> long[] toLongArray(Collection<T> from, ToLongFunction<T> mapper) {
+        if (CollectionUtil.isEmpty(from)) {
+            return new long[0];
+        }
+        long[] result = new long[from.size()];
+        int i = 0;
+        for (T item : from) {
+            result[i++] = mapper.applyAsLong(item);
+        }
+        return result;
+    }
+
+    //单次遍历转换为 int 数组，不装箱
+    public static <T> int[] toIntArray(Collection<T> from, ToIntFunction<T> mapper) {
+        if (CollectionUtil.isEmpty(from)) {
+            return new int[0];
+        }
+        int[] result = new int[from.size()];
+        int i = 0;
+        for (T item : from) {
+            result[i++] = mapper.applyAsInt(item);
+        }
+        return result;
+    }
+
+    //单次遍历转换为 double 数组，不装箱
+    public static <T> double[] toDoubleArray(Collection<T> from, ToDoubleFunction<T> mapper) {
+        if (CollectionUtil.isEmpty(from)) {
+            return new double[0];
+        }
+        double[] result = new double[from.size()];
+        int i = 0;
+        for (T item : from) {
+            result[i++] = mapper.applyAsDouble(item);
+        }
+        return result;
+    }
+
+
+
     //获取索引下标的元素
     public static <T> T get(T[] array, int index) {
         if (null == array || index >= array.length) {
@@ -3,8 +3,11 @@ package org.madcoder.util.collection;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.stream.Collectors;
 
@@ -16,9 +19,19 @@ import java.util.stream.Collectors;
 public class CollectionUtils {
 
 
-    //数组 targets 是否包含 source
+    //数组 targets 是否包含 source，固定常量的热点判断请使用 containsAny(Object, MembershipSet)
     public static boolean containsAny(Object source, Object... targets) {
-        return Arrays.asList(targets).contains(source);
+        for (Object target : targets) {
+            if (Objects.equals(source, target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //预编译的常量集合 targets 是否包含 source，targets 通过 MembershipSet.of 构建一次后复用
+    public static boolean containsAny(Object source, MembershipSet<?> targets) {
+        return targets.contains(source);
     }
 
 
@@ -55,6 +68,13 @@ public class CollectionUtils {
     }
 
 
+    //超大数据量去重，内存最多保留 maxKeysInMemory 个 key，超出部分溢写到临时文件；结果按输入顺序流式回调 consumer
+    public static <T, R> void distinct(Iterator<T> from, Function<T, R> keyMapper, Class<T> type, int maxKeysInMemory,
+                                       boolean keepLast, Consumer<T> consumer) {
+        new ExternalDistinct<>(type, keyMapper, maxKeysInMemory).keepLast(keepLast).distinct(from, consumer);
+    }
+
+
     //对集合的多功能操作
     public static <T, U> List<U> convertList(Collection<T> from, Function<T, U> func) {
         if (CollUtil.isEmpty(from)) {
@@ -155,6 +175,14 @@ public class CollectionUtils {
 
 
 
+    //超大数据量分组，内存最多保留 maxRecordsInMemory 条记录，超出部分按 key 分区溢写到临时文件；每个分组回调一次 consumer
+    public static <T, K> void convertMultiMap(Iterator<T> from, Function<T, K> keyFunc, Class<T> type, int maxRecordsInMemory,
+                                              BiConsumer<K, List<T>> consumer) {
+        new ExternalGroupBy<>(type, keyFunc, maxRecordsInMemory).groupBy(from, consumer);
+    }
+
+
+
     //生成一个 Map<K, List<T>> 的结果，其中键是通过 keyFunc 函数提取的,value是通过valueFunc
     public static <T, K, V> Map<K, List<V>> convertMultiMap(Collection<T> from, Function<T, K> keyFunc, Function<T, V> valueFunc) {
         if (CollUtil.isEmpty(from)) {
@@ -186,6 +214,17 @@ public class CollectionUtils {
         return builder.build();
     }
 
+    //返回 FrozenMap，读多写少的字典表、配置表使用，重复 key 按 policy 处理
+    public static <T, K> FrozenMap<K, T> convertFrozenMap(Collection<T> from, Function<T, K> keyFunc, FrozenMap.DuplicatePolicy policy) {
+        return FrozenMap.of(from, keyFunc, Function.identity(), policy);
+    }
+
+    //返回 FrozenMap，提取key用keyFunc，提取value 用valueFunc，重复 key 按 policy 处理
+    public static <T, K, V> FrozenMap<K, V> convertFrozenMap(Collection<T> from, Function<T, K> keyFunc, Function<T, V> valueFunc,
+                                                             FrozenMap.DuplicatePolicy policy) {
+        return FrozenMap.of(from, keyFunc, valueFunc, policy);
+    }
+
 //    public static boolean containsAny(Collection<?> source, Collection<?> candidates) {
 //        return org.springframework.util.CollectionUtils.containsAny(source, candidates);
 //    }
@@ -238,6 +277,79 @@ public class CollectionUtils {
         return from.stream().map(valueFunc).reduce(accumulator).get();
     }
 
+
+    //一次遍历同时统计 min / max / sum / count / average，替代多次调用 getMaxValue、getMinValue、getSumValue
+    public static <T> LongSummary summarizeLong(Collection<T> from, ToLongFunction<T> valueFunc) {
+        return summarizeLong(from, valueFunc, LongSummary::new);
+    }
+
+    //supplier 可以构建带 topK、分位数的统计
+    public static <T> LongSummary summarizeLong(Collection<T> from, ToLongFunction<T> valueFunc, Supplier<LongSummary> supplier) {
+        LongSummary summary = supplier.get();
+        if (CollUtil.isEmpty(from)) {
+            return summary;
+        }
+        for (T item : from) {
+            summary.accept(valueFunc.applyAsLong(item));
+        }
+        return summary;
+    }
+
+    //分组统计，每个 key 一个 LongSummary，value 全程不装箱
+    public static <T, K> Map<K, LongSummary> summarizeLong(Collection<T> from, Function<T, K> keyFunc, ToLongFunction<T> valueFunc,
+                                                           Supplier<LongSummary> supplier) {
+        if (CollUtil.isEmpty(from)) {
+            return new HashMap<>();
+        }
+        Map<K, LongSummary> result = new HashMap<>();
+        for (T item : from) {
+            K key = keyFunc.apply(item);
+            LongSummary summary = result.get(key);
+            if (summary == null) {
+                summary = supplier.get();
+                result.put(key, summary);
+            }
+            summary.accept(valueFunc.applyAsLong(item));
+        }
+        return result;
+    }
+
+    //一次遍历同时统计 min / max / sum / count / average，替代多次调用 getMaxValue、getMinValue、getSumValue
+    public static <T> DoubleSummary summarizeDouble(Collection<T> from, ToDoubleFunction<T> valueFunc) {
+        return summarizeDouble(from, valueFunc, DoubleSummary::new);
+    }
+
+    //supplier 可以构建带 topK、分位数的统计
+    public static <T> DoubleSummary summarizeDouble(Collection<T> from, ToDoubleFunction<T> valueFunc, Supplier<DoubleSummary> supplier) {
+        DoubleSummary summary = supplier.get();
+        if (CollUtil.isEmpty(from)) {
+            return summary;
+        }
+        for (T item : from) {
+            summary.accept(valueFunc.applyAsDouble(item));
+        }
+        return summary;
+    }
+
+    //分组统计，每个 key 一个 DoubleSummary，value 全程不装箱
+    public static <T, K> Map<K, DoubleSummary> summarizeDouble(Collection<T> from, Function<T, K> keyFunc, ToDoubleFunction<T> valueFunc,
+                                                               Supplier<DoubleSummary> supplier) {
+        if (CollUtil.isEmpty(from)) {
+            return new HashMap<>();
+        }
+        Map<K, DoubleSummary> result = new HashMap<>();
+        for (T item : from) {
+            K key = keyFunc.apply(item);
+            DoubleSummary summary = result.get(key);
+            if (summary == null) {
+                summary = supplier.get();
+                result.put(key, summary);
+            }
+            summary.accept(valueFunc.applyAsDouble(item));
+        }
+        return result;
+    }
+
     //添加元素
     public static <T> void addIfNotNull(Collection<T> coll, T item) {
         if (item == null) {
@@ -250,4 +362,127 @@ public class CollectionUtils {
         return deptId == null ? Collections.emptyList() : Collections.singleton(deptId);
     }
 
+
+    //把集合按 size 切分成多个批次，例如 IN (...) 查询、远程批量接口
+    public static <T> List<List<T>> partition(Collection<T> from, int size) {
+        if (CollUtil.isEmpty(from)) {
+            return new ArrayList<>();
+        }
+        List<T> list = from instanceof List ? (List<T>) from : new ArrayList<>(from);
+        return Lists.partition(list, size);
+    }
+
+    //分批并发执行 batchFunc，结果按批次顺序合并；parallelism 限制同时执行的批次数，timeout 为 null 时不限制总耗时
+    public static <T, R> List<R> executeInBatches(Collection<T> from, int batchSize, Function<List<T>, ? extends Collection<R>> batchFunc,
+                                                  Executor executor, int parallelism, Duration timeout) {
+        List<List<T>> batches = partition(from, batchSize);
+        List<Collection<R>> results = new ArrayList<>(Collections.nCopies(batches.size(), null));
+        executeInBatches(batches, batchFunc, executor, parallelism, timeout, results::set);
+        List<R> merged = new ArrayList<>(from == null ? 0 : from.size());
+        results.forEach(result -> {
+            if (result != null) {
+                merged.addAll(result);
+            }
+        });
+        return merged;
+    }
+
+    //分批并发执行 batchFunc，每批完成后立即回调 consumer（在调用线程中串行回调，顺序为完成顺序）
+    public static <T, R> void executeInBatches(Collection<T> from, int batchSize, Function<List<T>, ? extends R> batchFunc,
+                                               Executor executor, int parallelism, Duration timeout, Consumer<? super R> consumer) {
+        executeInBatches(partition(from, batchSize), batchFunc, executor, parallelism, timeout, (index, result) -> consumer.accept(result));
+    }
+
+    //分批并发查询后，按 keyFunc 合并成 map，按批次顺序合并，重复 key 保留输入顺序中靠前的值（与串行执行一致）
+    public static <T, K, V> Map<K, V> convertMapInBatches(Collection<T> from, int batchSize, Function<List<T>, ? extends Collection<V>> batchFunc,
+                                                          Function<V, K> keyFunc, Executor executor, int parallelism, Duration timeout) {
+        Map<K, V> result = new HashMap<>();
+        List<List<T>> batches = partition(from, batchSize);
+        List<Collection<V>> pending = new ArrayList<>(Collections.nCopies(batches.size(), null));
+        boolean[] done = new boolean[batches.size()];
+        int[] next = {0};
+        executeInBatches(batches, batchFunc, executor, parallelism, timeout, (Integer index, Collection<V> values) -> {
+            pending.set(index, values);
+            done[index] = true;
+            // 只合并从头开始连续完成的批次，之后的批次先暂存
+            for (; next[0] < done.length && done[next[0]]; next[0]++) {
+                Collection<V> batchValues = pending.set(next[0], null);
+                if (batchValues != null) {
+                    batchValues.forEach(value -> result.putIfAbsent(keyFunc.apply(value), value));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 分批执行的核心逻辑：最多 parallelism 个批次同时执行，一个完成后再提交下一个；
+     * 超时、批次异常、回调异常、线程中断时，取消所有未完成的批次
+     */
+    private static <T, R> void executeInBatches(List<List<T>> batches, Function<List<T>, ? extends R> batchFunc, Executor executor,
+                                                int parallelism, Duration timeout, BiConsumer<Integer, R> consumer) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism 必须大于 0");
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+        CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<R>, Integer> futures = new HashMap<>();
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0L;
+        int submitted = 0;
+        int completed = 0;
+        try {
+            for (; submitted < batches.size() && submitted < parallelism; submitted++) {
+                List<T> batch = batches.get(submitted);
+                futures.put(completionService.submit(() -> batchFunc.apply(batch)), submitted);
+            }
+            while (completed < batches.size()) {
+                Future<R> future;
+                if (timeout == null) {
+                    future = completionService.take();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    future = remaining > 0 ? completionService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (future == null) {
+                        throw new IllegalStateException("分批执行超时(" + timeout + ")，已完成 " + completed + "/" + batches.size()
+                                + " 个批次，未完成的批次已取消", new TimeoutException());
+                    }
+                }
+                completed++;
+                Integer index = futures.remove(future);
+                R result = getDone(future);
+                if (submitted < batches.size()) {
+                    List<T> batch = batches.get(submitted);
+                    futures.put(completionService.submit(() -> batchFunc.apply(batch)), submitted++);
+                }
+                consumer.accept(index, result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分批执行被中断，已完成 " + completed + "/" + batches.size() + " 个批次，未完成的批次已取消", e);
+        } finally {
+            futures.keySet().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static <R> R getDone(Future<R> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("批次执行失败", cause);
+        } catch (InterruptedException e) {
+            // 已完成的 future 不会阻塞，不会走到这里
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("分批执行被中断", e);
+        }
+    }
+
 }
@@ -0,0 +1,103 @@
+package org.madcoder.util.collection;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发计数 Map，每个 key 一个 {@link LongAdder}
+ * <p>
+ * 与 synchronized + HashMap 或 ConcurrentHashMap&lt;K, AtomicLong&gt; 相比：
+ * 1. 已存在的 key 只做一次无锁的 get，不会进入 computeIfAbsent 的桶锁
+ * 2. LongAdder 内部按线程分散到多个 Cell 累加，热点 key 的并发更新不会集中在同一个 CAS 上
+ *
+ * @author madcoder
+ */
+public class ConcurrentCounterMap<K> {
+
+    private final ConcurrentHashMap<K, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void increment(K key) {
+        add(key, 1L);
+    }
+
+    public void add(K key, long delta) {
+        LongAdder counter = counter(key);
+        counter.add(delta);
+        // 累加期间被 drain 移除时，把累加到旧计数器上的值转移到新的计数器
+        if (counters.get(key) != counter) {
+            transfer(key, counter);
+        }
+    }
+
+    /**
+     * @return key 当前的计数，不存在时为 0
+     */
+    public long get(K key) {
+        LongAdder counter = counters.get(key);
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * 获得当前计数的快照，不影响计数
+     * 与并发更新同时进行时，快照不是某一时刻的精确值，但每次更新最终都会被计入
+     *
+     * @return 普通 HashMap
+     */
+    public Map<K, Long> snapshot() {
+        Map<K, Long> result = Maps.newHashMapWithExpectedSize(counters.size());
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+
+    /**
+     * 获得当前计数并清零，适用于周期性上报；清零后的 key 被移除，size() 与内存只与两次 drain 之间出现过的 key 有关
+     * 清零与并发更新同时进行时，更新会计入本次或下一次 drain，不会丢失；计数为 0 的 key 不返回
+     *
+     * @return 普通 HashMap
+     */
+    public Map<K, Long> drain() {
+        Map<K, Long> result = Maps.newHashMapWithExpectedSize(counters.size());
+        counters.forEach((key, counter) -> {
+            // 不使用 sumThenReset：JDK 8 中它先读后清零，期间的并发更新会丢失；减去读到的值则不会
+            long value = counter.sum();
+            counter.add(-value);
+            if (value != 0) {
+                result.put(key, value);
+            }
+            if (counters.remove(key, counter)) {
+                // 读取之后、移除之前的并发更新
+                transfer(key, counter);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 把已移除的计数器上的值转移到 key 当前的计数器；同一个计数器的转移串行执行，每次只减去自己读到的值，不会重复计入
+     */
+    private void transfer(K key, LongAdder removed) {
+        synchronized (removed) {
+            long value = removed.sum();
+            if (value != 0) {
+                removed.add(-value);
+                counter(key).add(value);
+            }
+        }
+    }
+
+    private LongAdder counter(K key) {
+        LongAdder counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.madcoder.util.collection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * 并发合并 Map，适用于多线程汇总（rollup）场景
+ * <p>
+ * 内部按线程分成多个条带，每个条带是一个独立加锁的 HashMap，线程只更新自己条带中的值，
+ * 即使所有线程都在更新同一个热点 key，也只会在映射到同一条带的线程之间竞争；
+ * 读取时再把所有条带的值用同一个合并函数合并。
+ * <p>
+ * 因此合并函数必须满足结合律与交换律，例如求和、取最大值、取最小值；value 不允许为 null。
+ * 合并函数还必须返回新的值、不修改参数：读取时会把其他条带内部的值作为参数，且不持有该条带的锁，
+ * 像 (a, b) -&gt; { a.addAll(b); return a; } 这样修改参数的合并会破坏条带中的数据。
+ *
+ * @author madcoder
+ */
+public class ConcurrentMergeMap<K, V> {
+
+    private final BinaryOperator<V> mergeFunction;
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+
+    public ConcurrentMergeMap(BinaryOperator<V> mergeFunction) {
+        this(mergeFunction, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param mergeFunction 合并函数，必须满足结合律与交换律，且不修改参数
+     * @param concurrency   预期并发线程数，条带数为不小于它的 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentMergeMap(BinaryOperator<V> mergeFunction, int concurrency) {
+        this.mergeFunction = mergeFunction;
+        int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 合并 value 到 key 当前的值
+     */
+    public void merge(K key, V value) {
+        Stripe<K, V> stripe = stripes[stripeIndex()];
+        synchronized (stripe) {
+            stripe.map.merge(key, value, mergeFunction);
+        }
+    }
+
+    /**
+     * @return key 当前合并后的值，不存在时为 null
+     */
+    public V get(K key) {
+        V result = null;
+        for (Stripe<K, V> stripe : stripes) {
+            V value;
+            synchronized (stripe) {
+                value = stripe.map.get(key);
+            }
+            if (value != null) {
+                result = result == null ? value : mergeFunction.apply(result, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获得当前合并结果的快照，不影响已有数据
+     * 注意：快照中的 value 与内部共享，value 为可变对象时请不要修改
+     *
+     * @return 普通 HashMap
+     */
+    public Map<K, V> snapshot() {
+        Map<K, V> result = new HashMap<>();
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.map.forEach((key, value) -> result.merge(key, value, mergeFunction));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获得当前合并结果并清空，适用于周期性上报；与并发 merge 同时进行时，数据会计入本次或下一次 drain，不会丢失
+     *
+     * @return 普通 HashMap
+     */
+    public Map<K, V> drain() {
+        Map<K, V> result = new HashMap<>();
+        for (Stripe<K, V> stripe : stripes) {
+            Map<K, V> drained;
+            synchronized (stripe) {
+                drained = stripe.map;
+                stripe.map = new HashMap<>();
+            }
+            drained.forEach((key, value) -> result.merge(key, value, mergeFunction));
+        }
+        return result;
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Stripe<K, V> {
+
+        private Map<K, V> map = new HashMap<>();
+
+    }
+
+}
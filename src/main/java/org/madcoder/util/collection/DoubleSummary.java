@@ -0,0 +1,221 @@
+package org.madcoder.util.collection;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * double 值的单次遍历统计，一次遍历同时得到 min / max / sum / count / average，全程使用原始类型，不装箱
+ * <p>
+ * 可选：
+ * 1. topK > 0 时，使用原始类型小顶堆保留最大的 K 个值
+ * 2. keepValues = true 时，保留所有值用于计算分位数
+ * <p>
+ * 非线程安全，并发场景请每个线程一个实例，再通过 {@link #combine(DoubleSummary)} 合并
+ *
+ * @author madcoder
+ */
+public class DoubleSummary implements DoubleConsumer {
+
+    private long count;
+    private double sum;
+    /**
+     * Kahan 求和的补偿值，减少大量浮点数累加的误差
+     */
+    private double compensation;
+    /**
+     * 不做补偿的简单求和，输入中有无穷大时补偿值变为 NaN，此时使用它，与 {@link java.util.DoubleSummaryStatistics} 一致
+     */
+    private double simpleSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * 小顶堆，堆顶为当前 top K 中最小的值
+     */
+    private final double[] topHeap;
+    private int topSize;
+
+    private double[] values;
+    private int valueSize;
+    private boolean sorted = true;
+
+    public DoubleSummary() {
+        this(0, false);
+    }
+
+    /**
+     * @param topK       保留最大的 K 个值，0 表示不保留
+     * @param keepValues 是否保留所有值用于计算分位数
+     */
+    public DoubleSummary(int topK, boolean keepValues) {
+        Summaries.checkTopK(topK);
+        this.topHeap = topK > 0 ? new double[topK] : null;
+        this.values = keepValues ? new double[16] : null;
+    }
+
+    @Override
+    public void accept(double value) {
+        count++;
+        sumWithCompensation(value);
+        simpleSum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (topHeap != null) {
+            offerTop(value);
+        }
+        if (values != null) {
+            addValue(value);
+        }
+    }
+
+    /**
+     * 合并另一个统计结果，两者的 topK / keepValues 配置应一致
+     *
+     * @param other 另一个统计结果
+     * @return this
+     */
+    public DoubleSummary combine(DoubleSummary other) {
+        count += other.count;
+        sumWithCompensation(other.sum);
+        sumWithCompensation(-other.compensation);
+        simpleSum += other.simpleSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (topHeap != null && other.topHeap != null) {
+            for (int i = 0; i < other.topSize; i++) {
+                offerTop(other.topHeap[i]);
+            }
+        }
+        if (values != null && other.values != null) {
+            for (int i = 0; i < other.valueSize; i++) {
+                addValue(other.values[i]);
+            }
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        double result = sum - compensation;
+        if (Double.isNaN(result) && Double.isInfinite(simpleSum)) {
+            // 补偿值被无穷大污染，简单求和的结果才是正确的 ±Infinity；输入中有 NaN 时两者都是 NaN
+            return simpleSum;
+        }
+        return result;
+    }
+
+    /**
+     * @return 最小值，无数据时为 {@link Double#POSITIVE_INFINITY}，与 {@link java.util.DoubleSummaryStatistics} 一致
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return 最大值，无数据时为 {@link Double#NEGATIVE_INFINITY}，与 {@link java.util.DoubleSummaryStatistics} 一致
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return 平均值，无数据时为 0
+     */
+    public double getAverage() {
+        return count > 0 ? getSum() / count : 0.0d;
+    }
+
+    /**
+     * @return 最大的 K 个值，从大到小排列；未开启 topK 时为空数组
+     */
+    public double[] getTop() {
+        if (topHeap == null) {
+            return new double[0];
+        }
+        double[] top = Arrays.copyOf(topHeap, topSize);
+        Arrays.sort(top);
+        for (int i = 0, j = top.length - 1; i < j; i++, j--) {
+            double tmp = top[i];
+            top[i] = top[j];
+            top[j] = tmp;
+        }
+        return top;
+    }
+
+    /**
+     * 计算分位数（nearest-rank），需要开启 keepValues
+     *
+     * @param quantile 分位，取值 [0, 1]，例如 0.99
+     * @return 分位数
+     */
+    public double getQuantile(double quantile) {
+        int index = Summaries.quantileIndex(values != null, quantile, valueSize);
+        if (!sorted) {
+            Arrays.sort(values, 0, valueSize);
+            sorted = true;
+        }
+        return values[index];
+    }
+
+    private void sumWithCompensation(double value) {
+        double y = value - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+    }
+
+    private void addValue(double value) {
+        if (valueSize == values.length) {
+            values = Arrays.copyOf(values, valueSize << 1);
+        }
+        if (sorted && valueSize > 0 && values[valueSize - 1] > value) {
+            sorted = false;
+        }
+        values[valueSize++] = value;
+    }
+
+    private void offerTop(double value) {
+        if (topSize < topHeap.length) {
+            // 上浮
+            int i = topSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (topHeap[parent] <= value) {
+                    break;
+                }
+                topHeap[i] = topHeap[parent];
+                i = parent;
+            }
+            topHeap[i] = value;
+            return;
+        }
+        if (value <= topHeap[0]) {
+            return;
+        }
+        // 替换堆顶后下沉
+        int i = 0;
+        int half = topSize >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            if (child + 1 < topSize && topHeap[child + 1] < topHeap[child]) {
+                child++;
+            }
+            if (value <= topHeap[child]) {
+                break;
+            }
+            topHeap[i] = topHeap[child];
+            i = child;
+        }
+        topHeap[i] = value;
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleSummary{count=" + count + ", sum=" + getSum() + ", min=" + min + ", max=" + max
+                + ", average=" + getAverage() + '}';
+    }
+
+}
@@ -0,0 +1,283 @@
+package org.madcoder.util.collection;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 内存有界的去重，超出内存预算的部分溢写到磁盘，适用于 {@link CollectionUtils#distinct(Collection, Function)}
+ * 放不进堆内存的超大数据量
+ * <p>
+ * 处理过程：
+ * 1. 逐条读取输入，内存中最多保留 maxKeysInMemory 个 key；内存满后，新 key 的记录按 key 的哈希分区溢写到临时文件
+ * （同一个 key 的所有记录要么都在内存中处理，要么都在同一个分区文件中）
+ * 2. 内存结果写成按输入顺序排列的有序文件；逐个分区递归执行同样的过程（每层使用不同的哈希扰动），结果同样写成有序文件
+ * 3. 多路归并所有有序文件，按输入顺序流式输出；文件数超过 {@link #MAX_MERGE_WAYS} 时先分组归并成中间文件，
+ * 直到剩余的文件可以一次归并，同时打开的文件数与读缓冲不随数据量增长
+ * <p>
+ * 开启 Bloom 过滤器时，溢写阶段记录每个分区是否可能存在重复 key，确定无重复的分区跳过第 2 步，直接参与归并。
+ * <p>
+ * 内存中最多保留约 maxKeysInMemory 个 key，不随数据量增长；唯一的例外是大量不同 key 的 hashCode 相同，
+ * 此时在递归达到 {@link #MAX_DEPTH} 层后整个分区读入内存。
+ * 溢写使用 {@link org.madcoder.util.json.JsonUtils} 序列化，记录类型需要支持 JSON 反序列化。非线程安全。
+ *
+ * @author madcoder
+ */
+public class ExternalDistinct<T, R> {
+
+    /**
+     * 最大递归分区层数
+     */
+    public static final int MAX_DEPTH = 4;
+    /**
+     * 一次归并最多同时打开的有序文件数，每个文件占用一个文件句柄与一个读缓冲
+     */
+    public static final int MAX_MERGE_WAYS = 64;
+
+    private final Class<T> type;
+    private final Function<T, R> keyMapper;
+    private final int maxKeysInMemory;
+
+    private boolean keepLast;
+    private boolean bloomFilter = true;
+    private int partitions = 64;
+
+    /**
+     * @param type            记录类型，用于溢写后的反序列化
+     * @param keyMapper       去重 key
+     * @param maxKeysInMemory 内存中最多保留的 key 数量
+     */
+    public ExternalDistinct(Class<T> type, Function<T, R> keyMapper, int maxKeysInMemory) {
+        if (maxKeysInMemory <= 0) {
+            throw new IllegalArgumentException("maxKeysInMemory 必须大于 0");
+        }
+        this.type = type;
+        this.keyMapper = keyMapper;
+        this.maxKeysInMemory = maxKeysInMemory;
+    }
+
+    /**
+     * 发生重复时保留最后一条，默认保留第一条；无论保留哪条，输出位置都是该 key 的保留记录在输入中的位置
+     */
+    public ExternalDistinct<T, R> keepLast(boolean keepLast) {
+        this.keepLast = keepLast;
+        return this;
+    }
+
+    /**
+     * 是否使用 Bloom 过滤器跳过无重复的分区，默认开启
+     */
+    public ExternalDistinct<T, R> bloomFilter(boolean bloomFilter) {
+        this.bloomFilter = bloomFilter;
+        return this;
+    }
+
+    /**
+     * 溢写分区数，默认 64
+     */
+    public ExternalDistinct<T, R> partitions(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions 必须大于 0");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * 执行去重
+     *
+     * @param from     输入
+     * @param consumer 去重后的记录，按输入顺序回调
+     */
+    public void distinct(Iterator<T> from, Consumer<T> consumer) {
+        List<SpillFile<T>> files = new ArrayList<>();
+        try {
+            List<SpillFile<T>> runs = new ArrayList<>();
+            List<SpillFile.Record<T>> survivors = distinct(sequenced(from), 0, runs, files);
+            // 没有溢写，直接按输入顺序输出
+            if (runs.isEmpty()) {
+                survivors.forEach(record -> consumer.accept(record.value));
+                return;
+            }
+            // 第三步，多路归并，按输入顺序输出
+            merge(runs, files, consumer);
+        } finally {
+            // 同时关闭归并中途异常时尚未读完的文件
+            files.forEach(SpillFile::delete);
+        }
+    }
+
+    /**
+     * 对 records 去重：没有溢写时返回内存中的结果；否则所有结果都写成按输入顺序排列的文件加入 runs，返回空列表
+     *
+     * @param records 按输入顺序排列的记录
+     * @param depth   递归层数
+     */
+    private List<SpillFile.Record<T>> distinct(Iterator<SpillFile.Record<T>> records, int depth,
+                                               List<SpillFile<T>> runs, List<SpillFile<T>> files) {
+        // 第一步，内存去重，超出部分按分区溢写
+        Map<R, SpillFile.Record<T>> memory = new HashMap<>();
+        SpillFile<T>[] spills = null;
+        boolean[] possibleDuplicate = new boolean[partitions];
+        BloomFilter<Integer> bloom = null;
+        while (records.hasNext()) {
+            SpillFile.Record<T> record = records.next();
+            R key = keyMapper.apply(record.value);
+            if (memory.containsKey(key)) {
+                if (keepLast) {
+                    memory.put(key, record);
+                }
+                continue;
+            }
+            // 达到最大层数后不再溢写，整个分区在内存中去重
+            if (memory.size() < maxKeysInMemory || depth >= MAX_DEPTH) {
+                memory.put(key, record);
+                continue;
+            }
+            if (spills == null) {
+                spills = newSpills(files);
+                if (bloomFilter) {
+                    bloom = BloomFilter.create(Funnels.integerFunnel(), (long) maxKeysInMemory * 8, 0.01);
+                }
+            }
+            int hash = Objects.hashCode(key);
+            int partition = SpillFile.partition(key, depth, partitions);
+            // put 返回 false 表示该哈希可能出现过，分区中可能存在重复 key
+            if (bloom == null || !bloom.put(hash)) {
+                possibleDuplicate[partition] = true;
+            }
+            spills[partition].write(record.seq, record.value);
+        }
+        List<SpillFile.Record<T>> survivors = sortBySeq(memory.values());
+        if (spills == null) {
+            return survivors;
+        }
+
+        // 第二步，内存结果写成有序文件，释放内存；各分区递归去重后写成有序文件
+        memory = null;
+        runs.add(writeRun(survivors, files));
+        survivors = null;
+        for (int i = 0; i < partitions; i++) {
+            SpillFile<T> spill = spills[i];
+            if (spill.size() == 0) {
+                continue;
+            }
+            if (!possibleDuplicate[i]) {
+                // 归并之前不再写入，先释放写缓冲
+                spill.finish();
+                runs.add(spill);
+                continue;
+            }
+            List<SpillFile.Record<T>> partition = distinct(spill.iterator(), depth + 1, runs, files);
+            if (!partition.isEmpty()) {
+                runs.add(writeRun(partition, files));
+            }
+            spill.delete();
+        }
+        return Collections.emptyList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private SpillFile<T>[] newSpills(List<SpillFile<T>> files) {
+        SpillFile<T>[] spills = (SpillFile<T>[]) new SpillFile<?>[partitions];
+        for (int i = 0; i < partitions; i++) {
+            spills[i] = new SpillFile<>(type);
+            files.add(spills[i]);
+        }
+        return spills;
+    }
+
+    private static <T> Iterator<SpillFile.Record<T>> sequenced(Iterator<T> from) {
+        return new Iterator<SpillFile.Record<T>>() {
+
+            private long seq;
+
+            @Override
+            public boolean hasNext() {
+                return from.hasNext();
+            }
+
+            @Override
+            public SpillFile.Record<T> next() {
+                return new SpillFile.Record<>(seq++, from.next());
+            }
+
+        };
+    }
+
+    private SpillFile<T> writeRun(List<SpillFile.Record<T>> records, List<SpillFile<T>> files) {
+        SpillFile<T> run = new SpillFile<>(type);
+        files.add(run);
+        records.forEach(record -> run.write(record.seq, record.value));
+        run.finish();
+        return run;
+    }
+
+    private static <T> List<SpillFile.Record<T>> sortBySeq(Collection<SpillFile.Record<T>> records) {
+        List<SpillFile.Record<T>> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(record -> record.seq));
+        return sorted;
+    }
+
+    private void merge(List<SpillFile<T>> runs, List<SpillFile<T>> files, Consumer<T> consumer) {
+        // 超过最大路数时，每 MAX_MERGE_WAYS 个文件归并成一个中间文件，归并后立即删除，重复直到只需一次归并
+        while (runs.size() > MAX_MERGE_WAYS) {
+            List<SpillFile<T>> merged = new ArrayList<>((runs.size() + MAX_MERGE_WAYS - 1) / MAX_MERGE_WAYS);
+            for (int i = 0; i < runs.size(); i += MAX_MERGE_WAYS) {
+                List<SpillFile<T>> group = runs.subList(i, Math.min(i + MAX_MERGE_WAYS, runs.size()));
+                SpillFile<T> run = new SpillFile<>(type);
+                files.add(run);
+                merge(group, record -> run.write(record.seq, record.value));
+                run.finish();
+                group.forEach(SpillFile::delete);
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        merge(runs, record -> consumer.accept(record.value));
+    }
+
+    /**
+     * 按序号多路归并，同时打开 runs 中的所有文件
+     */
+    private static <T> void merge(List<SpillFile<T>> runs, Consumer<SpillFile.Record<T>> consumer) {
+        PriorityQueue<Cursor<T>> queue = new PriorityQueue<>(runs.size(), Comparator.comparingLong(cursor -> cursor.head.seq));
+        for (SpillFile<T> run : runs) {
+            Iterator<SpillFile.Record<T>> iterator = run.iterator();
+            if (iterator.hasNext()) {
+                queue.add(new Cursor<>(iterator));
+            }
+        }
+        while (!queue.isEmpty()) {
+            Cursor<T> cursor = queue.poll();
+            consumer.accept(cursor.head);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+    }
+
+    private static final class Cursor<T> {
+
+        private final Iterator<SpillFile.Record<T>> iterator;
+        private SpillFile.Record<T> head;
+
+        private Cursor(Iterator<SpillFile.Record<T>> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+
+    }
+
+}
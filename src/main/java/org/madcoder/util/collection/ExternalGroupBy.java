@@ -0,0 +1,145 @@
+package org.madcoder.util.collection;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 内存有界的分组，超出内存上限时按 key 的哈希分区溢写到磁盘，
+ * 适用于 {@link CollectionUtils#convertMultiMap(Collection, Function)} 放不进堆内存的数据量
+ * <p>
+ * 处理过程：
+ * 1. 逐条读取输入，在内存中分组；内存中的记录数达到 maxRecordsInMemory 时，全部按 key 的哈希分区追加到临时文件
+ * 2. 输入结束后，如果从未溢写，直接输出内存中的分组；否则逐个分区递归执行同样的过程（每层使用不同的哈希扰动），
+ * 同一个 key 的记录一定落在同一个分区，分区足够小时即可在内存中完成分组
+ * <p>
+ * 内存占用上限约为 maxRecordsInMemory 条记录，不随数据量增长；唯一的例外是单个分组本身超过上限，
+ * 此时在递归达到 {@link #MAX_DEPTH} 层后整组读入内存。
+ * <p>
+ * 每个分组只回调一次，分组内记录保持输入顺序，分组之间的顺序不确定。
+ * 溢写使用 {@link org.madcoder.util.json.JsonUtils} 序列化，记录类型需要支持 JSON 反序列化。非线程安全。
+ *
+ * @author madcoder
+ */
+public class ExternalGroupBy<T, K> {
+
+    /**
+     * 最大递归分区层数
+     */
+    public static final int MAX_DEPTH = 4;
+
+    private final Class<T> type;
+    private final Function<T, K> keyFunc;
+    private final int maxRecordsInMemory;
+
+    private int partitions = 64;
+
+    /**
+     * @param type               记录类型，用于溢写后的反序列化
+     * @param keyFunc            分组 key
+     * @param maxRecordsInMemory 内存中最多保留的记录数
+     */
+    public ExternalGroupBy(Class<T> type, Function<T, K> keyFunc, int maxRecordsInMemory) {
+        if (maxRecordsInMemory <= 0) {
+            throw new IllegalArgumentException("maxRecordsInMemory 必须大于 0");
+        }
+        this.type = type;
+        this.keyFunc = keyFunc;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+    }
+
+    /**
+     * 每层溢写的分区数，默认 64
+     */
+    public ExternalGroupBy<T, K> partitions(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions 必须大于 0");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * 执行分组
+     *
+     * @param from     输入
+     * @param consumer 分组回调，参数为 key 与该 key 的所有记录
+     */
+    public void groupBy(Iterator<T> from, BiConsumer<K, List<T>> consumer) {
+        groupBy(from, consumer, 0);
+    }
+
+    private void groupBy(Iterator<T> from, BiConsumer<K, List<T>> consumer, int depth) {
+        Map<K, List<T>> groups = new HashMap<>();
+        int count = 0;
+        SpillFile<T>[] spills = null;
+        try {
+            while (from.hasNext()) {
+                T value = from.next();
+                groups.computeIfAbsent(keyFunc.apply(value), k -> new ArrayList<>()).add(value);
+                // 达到最大层数后不再溢写，整个分区在内存中分组
+                if (++count >= maxRecordsInMemory && depth < MAX_DEPTH) {
+                    if (spills == null) {
+                        spills = newSpills();
+                    }
+                    spill(groups, spills, depth);
+                    count = 0;
+                }
+            }
+            if (spills == null) {
+                groups.forEach(consumer);
+                return;
+            }
+            spill(groups, spills, depth);
+            for (int i = 0; i < spills.length; i++) {
+                if (spills[i].size() > 0) {
+                    groupBy(values(spills[i].iterator()), consumer, depth + 1);
+                }
+                spills[i].delete();
+                spills[i] = null;
+            }
+        } finally {
+            if (spills != null) {
+                for (SpillFile<T> spill : spills) {
+                    if (spill != null) {
+                        spill.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    private void spill(Map<K, List<T>> groups, SpillFile<T>[] spills, int depth) {
+        groups.forEach((key, values) -> {
+            SpillFile<T> spill = spills[SpillFile.partition(key, depth, partitions)];
+            values.forEach(value -> spill.write(0, value));
+        });
+        groups.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private SpillFile<T>[] newSpills() {
+        SpillFile<T>[] spills = (SpillFile<T>[]) new SpillFile<?>[partitions];
+        for (int i = 0; i < partitions; i++) {
+            spills[i] = new SpillFile<>(type);
+        }
+        return spills;
+    }
+
+    private static <T> Iterator<T> values(SpillFile.RecordIterator<T> records) {
+        return new Iterator<T>() {
+
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return records.next().value;
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,313 @@
+package org.madcoder.util.collection;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 冻结的不可变 Map，适用于构建一次、读取极其频繁的字典表、配置表
+ * <p>
+ * 1. 开放寻址 + 线性探测，探测表为 long[]：高 32 位缓存 key 的哈希，低 32 位为 entry 下标，
+ * 大部分未命中只需比较哈希，无需调用 equals
+ * 2. 负载因子不超过 0.5，探测链短
+ * 3. 遍历顺序与构建时的插入顺序一致，与 {@link MapUtils#convertMap(List)} 的 LinkedHashMap 一致
+ * <p>
+ * key 不允许为 null，value 允许为 null
+ *
+ * @author madcoder
+ */
+public final class FrozenMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * 重复 key 的处理策略
+     */
+    public enum DuplicatePolicy {
+
+        /**
+         * 抛出 IllegalArgumentException，与 ImmutableMap 一致
+         */
+        THROW,
+        /**
+         * 保留第一个
+         */
+        KEEP_FIRST,
+        /**
+         * 保留最后一个
+         */
+        KEEP_LAST
+
+    }
+
+    private static final FrozenMap<?, ?> EMPTY = new FrozenMap<>(new Object[0], new Object[0], new long[1]);
+
+    private final Object[] keys;
+    private final Object[] values;
+    private final long[] slots;
+    private final int mask;
+
+    private transient Set<Entry<K, V>> entrySet;
+
+    private FrozenMap(Object[] keys, Object[] values, long[] slots) {
+        this.keys = keys;
+        this.values = values;
+        this.slots = slots;
+        this.mask = slots.length - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> FrozenMap<K, V> of() {
+        return (FrozenMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 从 Map 构建
+     *
+     * @param map 来源
+     * @return FrozenMap
+     */
+    public static <K, V> FrozenMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof FrozenMap) {
+            @SuppressWarnings("unchecked")
+            FrozenMap<K, V> frozen = (FrozenMap<K, V>) map;
+            return frozen;
+        }
+        Builder<K, V> builder = new Builder<>(map.size(), DuplicatePolicy.THROW);
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * 从集合构建
+     *
+     * @param from      来源集合
+     * @param keyFunc   key 提取
+     * @param valueFunc value 提取
+     * @param policy    重复 key 的处理策略
+     * @return FrozenMap
+     */
+    public static <T, K, V> FrozenMap<K, V> of(Collection<T> from, Function<T, K> keyFunc, Function<T, V> valueFunc,
+                                               DuplicatePolicy policy) {
+        if (from == null || from.isEmpty()) {
+            return of();
+        }
+        Builder<K, V> builder = new Builder<>(from.size(), policy);
+        from.forEach(item -> builder.put(keyFunc.apply(item), valueFunc.apply(item)));
+        return builder.build();
+    }
+
+    public static <K, V> Builder<K, V> builder(int expectedSize, DuplicatePolicy policy) {
+        return new Builder<>(expectedSize, policy);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        // 扰动，避免低位相同的哈希聚集在一起
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static int tableSize(int size) {
+        // 负载因子 <= 0.5
+        return Math.max(2, Integer.highestOneBit(Math.max(1, size) - 1) << 2);
+    }
+
+    /**
+     * 查找 key 对应的 entry 下标
+     *
+     * @return 下标，不存在时返回 -1
+     */
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int h = hash(key);
+        long[] slots = this.slots;
+        int mask = this.mask;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            if ((int) (slot >>> 32) == h) {
+                int index = (int) slot - 1;
+                Object candidate = keys[index];
+                if (candidate == key || candidate.equals(key)) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept((K) keys[i], (V) values[i]);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<Entry<K, V>>() {
+
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new Iterator<Entry<K, V>>() {
+
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<K, V> next() {
+                            if (index >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = index++;
+                            return new SimpleImmutableEntry<>((K) keys[i], (V) values[i]);
+                        }
+
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+
+            };
+        }
+        return es;
+    }
+
+    /**
+     * FrozenMap 构建器，非线程安全
+     */
+    public static final class Builder<K, V> {
+
+        private final DuplicatePolicy policy;
+        private Object[] keys;
+        private Object[] values;
+        private long[] slots;
+        private int size;
+
+        private Builder(int expectedSize, DuplicatePolicy policy) {
+            this.policy = Objects.requireNonNull(policy, "policy");
+            int capacity = Math.max(expectedSize, 4);
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+            this.slots = new long[tableSize(capacity)];
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            Objects.requireNonNull(key, "FrozenMap 的 key 不能为 null");
+            int h = hash(key);
+            int mask = slots.length - 1;
+            int i = h & mask;
+            for (; slots[i] != 0; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if ((int) (slot >>> 32) != h) {
+                    continue;
+                }
+                int index = (int) slot - 1;
+                if (!keys[index].equals(key)) {
+                    continue;
+                }
+                switch (policy) {
+                    case KEEP_FIRST:
+                        return this;
+                    case KEEP_LAST:
+                        values[index] = value;
+                        return this;
+                    default:
+                        throw new IllegalArgumentException("重复的 key: " + key + "，value: " + values[index] + " 和 " + value);
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+                values = Arrays.copyOf(values, size << 1);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            slots[i] = ((long) h << 32) | size;
+            if (tableSize(size) > slots.length) {
+                rehash();
+            }
+            return this;
+        }
+
+        private void rehash() {
+            long[] newSlots = new long[slots.length << 1];
+            int mask = newSlots.length - 1;
+            for (long slot : slots) {
+                if (slot == 0) {
+                    continue;
+                }
+                int i = (int) (slot >>> 32) & mask;
+                while (newSlots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                newSlots[i] = slot;
+            }
+            slots = newSlots;
+        }
+
+        public FrozenMap<K, V> build() {
+            if (size == 0) {
+                return of();
+            }
+            // 按最终大小收紧存储，探测表如有富余也一并收紧；始终复制，构建器后续的 put 不影响已构建的 map
+            long[] finalSlots = slots.clone();
+            if (tableSize(size) < slots.length) {
+                finalSlots = new long[tableSize(size)];
+                int mask = finalSlots.length - 1;
+                for (long slot : slots) {
+                    if (slot == 0) {
+                        continue;
+                    }
+                    int i = (int) (slot >>> 32) & mask;
+                    while (finalSlots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    finalSlots[i] = slot;
+                }
+            }
+            return new FrozenMap<>(Arrays.copyOf(keys, size), Arrays.copyOf(values, size), finalSlots);
+        }
+
+    }
+
+}
@@ -0,0 +1,275 @@
+package org.madcoder.util.collection;
+
+import cn.hutool.core.collection.CollUtil;
+import com.google.common.collect.Maps;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 集合 Join 工具类，用于替代 {@link CollectionUtils#convertMap(Collection, Function)} + 循环拼装 DTO 的写法
+ * <p>
+ * 所有 Join 都基于哈希：在较小的一侧构建预估容量的哈希索引，再用另一侧探测，复杂度 O(n + m)。
+ * 结果顺序始终与左侧集合的顺序一致，同一左侧元素匹配到的多个右侧元素，保持右侧集合中的顺序。
+ * 与 SQL 一致，key 为 null 的元素不参与匹配。
+ *
+ * @author madcoder
+ */
+public class JoinUtils {
+
+    /**
+     * 探测侧元素数量达到该值时，parallel = true 才会真正并行探测，避免小集合的线程调度开销
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * 内连接，只返回两侧 key 相等的组合
+     *
+     * @param left     左侧集合
+     * @param right    右侧集合
+     * @param leftKey  左侧 key 提取
+     * @param rightKey 右侧 key 提取
+     * @param joiner   组合函数
+     * @return 组合结果
+     */
+    public static <L, R, K, T> List<T> innerJoin(Collection<L> left, Collection<R> right,
+                                                 Function<L, K> leftKey, Function<R, K> rightKey,
+                                                 BiFunction<L, R, T> joiner) {
+        return innerJoin(left, right, leftKey, rightKey, joiner, false);
+    }
+
+    /**
+     * 内连接，只返回两侧 key 相等的组合
+     *
+     * @param parallel 是否并行探测，仅在探测侧超过 {@link #PARALLEL_THRESHOLD} 时生效
+     */
+    public static <L, R, K, T> List<T> innerJoin(Collection<L> left, Collection<R> right,
+                                                 Function<L, K> leftKey, Function<R, K> rightKey,
+                                                 BiFunction<L, R, T> joiner, boolean parallel) {
+        if (CollUtil.isEmpty(left) || CollUtil.isEmpty(right)) {
+            return new ArrayList<>();
+        }
+        List<L> leftList = asList(left);
+        IntFunction<List<R>> matches = buildMatches(leftList, right, leftKey, rightKey, parallel);
+        if (useParallel(parallel, leftList.size())) {
+            return IntStream.range(0, leftList.size()).parallel().boxed()
+                    .flatMap(i -> {
+                        L l = leftList.get(i);
+                        return matches.apply(i).stream().map(r -> joiner.apply(l, r));
+                    })
+                    .collect(Collectors.toList());
+        }
+        List<T> result = new ArrayList<>(leftList.size());
+        for (int i = 0; i < leftList.size(); i++) {
+            L l = leftList.get(i);
+            for (R r : matches.apply(i)) {
+                result.add(joiner.apply(l, r));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 左连接，左侧元素全部保留，未匹配到时 joiner 的右侧参数为 null
+     *
+     * @param left     左侧集合
+     * @param right    右侧集合
+     * @param leftKey  左侧 key 提取
+     * @param rightKey 右侧 key 提取
+     * @param joiner   组合函数
+     * @return 组合结果
+     */
+    public static <L, R, K, T> List<T> leftJoin(Collection<L> left, Collection<R> right,
+                                                Function<L, K> leftKey, Function<R, K> rightKey,
+                                                BiFunction<L, R, T> joiner) {
+        return leftJoin(left, right, leftKey, rightKey, joiner, false);
+    }
+
+    /**
+     * 左连接，左侧元素全部保留，未匹配到时 joiner 的右侧参数为 null
+     *
+     * @param parallel 是否并行探测，仅在探测侧超过 {@link #PARALLEL_THRESHOLD} 时生效
+     */
+    public static <L, R, K, T> List<T> leftJoin(Collection<L> left, Collection<R> right,
+                                                Function<L, K> leftKey, Function<R, K> rightKey,
+                                                BiFunction<L, R, T> joiner, boolean parallel) {
+        if (CollUtil.isEmpty(left)) {
+            return new ArrayList<>();
+        }
+        List<L> leftList = asList(left);
+        IntFunction<List<R>> matches = CollUtil.isEmpty(right) ? i -> Collections.emptyList()
+                : buildMatches(leftList, right, leftKey, rightKey, parallel);
+        if (useParallel(parallel, leftList.size())) {
+            return IntStream.range(0, leftList.size()).parallel().boxed()
+                    .flatMap(i -> {
+                        L l = leftList.get(i);
+                        List<R> rs = matches.apply(i);
+                        return rs.isEmpty() ? Stream.of(joiner.apply(l, null))
+                                : rs.stream().map(r -> joiner.apply(l, r));
+                    })
+                    .collect(Collectors.toList());
+        }
+        List<T> result = new ArrayList<>(leftList.size());
+        for (int i = 0; i < leftList.size(); i++) {
+            L l = leftList.get(i);
+            List<R> rs = matches.apply(i);
+            if (rs.isEmpty()) {
+                result.add(joiner.apply(l, null));
+                continue;
+            }
+            for (R r : rs) {
+                result.add(joiner.apply(l, r));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 一对多分组连接，每个左侧元素对应一次 joiner 调用，右侧参数为所有匹配元素的只读列表（未匹配时为空列表）
+     *
+     * @param left     左侧集合
+     * @param right    右侧集合
+     * @param leftKey  左侧 key 提取
+     * @param rightKey 右侧 key 提取
+     * @param joiner   组合函数
+     * @return 组合结果，与左侧集合一一对应
+     */
+    public static <L, R, K, T> List<T> groupJoin(Collection<L> left, Collection<R> right,
+                                                 Function<L, K> leftKey, Function<R, K> rightKey,
+                                                 BiFunction<L, List<R>, T> joiner) {
+        return groupJoin(left, right, leftKey, rightKey, joiner, false);
+    }
+
+    /**
+     * 一对多分组连接，每个左侧元素对应一次 joiner 调用，右侧参数为所有匹配元素的只读列表（未匹配时为空列表）
+     *
+     * @param parallel 是否并行探测，仅在探测侧超过 {@link #PARALLEL_THRESHOLD} 时生效
+     */
+    public static <L, R, K, T> List<T> groupJoin(Collection<L> left, Collection<R> right,
+                                                 Function<L, K> leftKey, Function<R, K> rightKey,
+                                                 BiFunction<L, List<R>, T> joiner, boolean parallel) {
+        if (CollUtil.isEmpty(left)) {
+            return new ArrayList<>();
+        }
+        List<L> leftList = asList(left);
+        IntFunction<List<R>> matches = CollUtil.isEmpty(right) ? i -> Collections.emptyList()
+                : buildMatches(leftList, right, leftKey, rightKey, parallel);
+        // 索引中的列表被同一个 key 的左侧元素共用，包装为只读后再交给 joiner
+        if (useParallel(parallel, leftList.size())) {
+            return IntStream.range(0, leftList.size()).parallel()
+                    .mapToObj(i -> joiner.apply(leftList.get(i), Collections.unmodifiableList(matches.apply(i))))
+                    .collect(Collectors.toList());
+        }
+        List<T> result = new ArrayList<>(leftList.size());
+        for (int i = 0; i < leftList.size(); i++) {
+            result.add(joiner.apply(leftList.get(i), Collections.unmodifiableList(matches.apply(i))));
+        }
+        return result;
+    }
+
+    /**
+     * 计算每个左侧元素（按下标）匹配到的右侧元素，哈希索引建在较小的一侧
+     */
+    private static <L, R, K> IntFunction<List<R>> buildMatches(List<L> left, Collection<R> right,
+                                                               Function<L, K> leftKey, Function<R, K> rightKey,
+                                                               boolean parallel) {
+        // 情况一：右侧较小，右侧建索引，左侧逐个探测
+        if (right.size() <= left.size()) {
+            Map<K, List<R>> index = buildIndex(right, rightKey);
+            return i -> {
+                K key = leftKey.apply(left.get(i));
+                List<R> rs = key != null ? index.get(key) : null;
+                return rs != null ? rs : Collections.emptyList();
+            };
+        }
+
+        // 情况二：左侧较小，左侧按下标建索引，右侧逐个探测后回填到左侧下标
+        Map<K, List<Integer>> index = buildIndex(positions(left.size()), i -> leftKey.apply(left.get(i)));
+        List<R> rightList = asList(right);
+        @SuppressWarnings("unchecked")
+        List<Integer>[] hits = (List<Integer>[]) new List<?>[rightList.size()];
+        if (useParallel(parallel, rightList.size())) {
+            // 哈希索引只读，可以并发探测；回填仍然串行，保证右侧顺序
+            IntStream.range(0, rightList.size()).parallel().forEach(j -> {
+                K key = rightKey.apply(rightList.get(j));
+                hits[j] = key != null ? index.get(key) : null;
+            });
+        } else {
+            for (int j = 0; j < rightList.size(); j++) {
+                K key = rightKey.apply(rightList.get(j));
+                hits[j] = key != null ? index.get(key) : null;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<R>[] buckets = (List<R>[]) new List<?>[left.size()];
+        for (int j = 0; j < hits.length; j++) {
+            if (hits[j] == null) {
+                continue;
+            }
+            R r = rightList.get(j);
+            for (Integer i : hits[j]) {
+                buckets[i] = append(buckets[i], r);
+            }
+        }
+        return i -> buckets[i] != null ? buckets[i] : Collections.emptyList();
+    }
+
+    /**
+     * 构建预估容量的哈希索引，大部分 key 唯一时只占用 singletonList，重复时才升级为 ArrayList
+     */
+    private static <E, K> Map<K, List<E>> buildIndex(Collection<E> from, Function<E, K> keyFunc) {
+        Map<K, List<E>> index = Maps.newHashMapWithExpectedSize(from.size());
+        for (E e : from) {
+            K key = keyFunc.apply(e);
+            if (key == null) {
+                continue;
+            }
+            index.put(key, append(index.get(key), e));
+        }
+        return index;
+    }
+
+    private static <E> List<E> append(List<E> list, E e) {
+        if (list == null) {
+            return Collections.singletonList(e);
+        }
+        if (list.size() == 1 && !(list instanceof ArrayList)) {
+            List<E> grown = new ArrayList<>(4);
+            grown.add(list.get(0));
+            grown.add(e);
+            return grown;
+        }
+        list.add(e);
+        return list;
+    }
+
+    private static List<Integer> positions(int size) {
+        return new AbstractList<Integer>() {
+
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private static <T> List<T> asList(Collection<T> from) {
+        return from instanceof List && from instanceof RandomAccess ? (List<T>) from : new ArrayList<>(from);
+    }
+
+    private static boolean useParallel(boolean parallel, int size) {
+        return parallel && size >= PARALLEL_THRESHOLD;
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.madcoder.util.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * long 值的单次遍历统计，一次遍历同时得到 min / max / sum / count / average，全程使用原始类型，不装箱
+ * <p>
+ * 可选：
+ * 1. topK > 0 时，使用原始类型小顶堆保留最大的 K 个值
+ * 2. keepValues = true 时，保留所有值用于计算分位数
+ * <p>
+ * 非线程安全，并发场景请每个线程一个实例，再通过 {@link #combine(LongSummary)} 合并
+ *
+ * @author madcoder
+ */
+public class LongSummary implements LongConsumer {
+
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * 小顶堆，堆顶为当前 top K 中最小的值
+     */
+    private final long[] topHeap;
+    private int topSize;
+
+    private long[] values;
+    private int valueSize;
+    private boolean sorted = true;
+
+    public LongSummary() {
+        this(0, false);
+    }
+
+    /**
+     * @param topK       保留最大的 K 个值，0 表示不保留
+     * @param keepValues 是否保留所有值用于计算分位数
+     */
+    public LongSummary(int topK, boolean keepValues) {
+        Summaries.checkTopK(topK);
+        this.topHeap = topK > 0 ? new long[topK] : null;
+        this.values = keepValues ? new long[16] : null;
+    }
+
+    @Override
+    public void accept(long value) {
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        if (topHeap != null) {
+            offerTop(value);
+        }
+        if (values != null) {
+            addValue(value);
+        }
+    }
+
+    /**
+     * 合并另一个统计结果，两者的 topK / keepValues 配置应一致
+     *
+     * @param other 另一个统计结果
+     * @return this
+     */
+    public LongSummary combine(LongSummary other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (topHeap != null && other.topHeap != null) {
+            for (int i = 0; i < other.topSize; i++) {
+                offerTop(other.topHeap[i]);
+            }
+        }
+        if (values != null && other.values != null) {
+            for (int i = 0; i < other.valueSize; i++) {
+                addValue(other.values[i]);
+            }
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return 最小值，无数据时为 {@link Long#MAX_VALUE}，与 {@link java.util.LongSummaryStatistics} 一致
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return 最大值，无数据时为 {@link Long#MIN_VALUE}，与 {@link java.util.LongSummaryStatistics} 一致
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return 平均值，无数据时为 0
+     */
+    public double getAverage() {
+        return count > 0 ? (double) sum / count : 0.0d;
+    }
+
+    /**
+     * @return 最大的 K 个值，从大到小排列；未开启 topK 时为空数组
+     */
+    public long[] getTop() {
+        if (topHeap == null) {
+            return new long[0];
+        }
+        long[] top = Arrays.copyOf(topHeap, topSize);
+        Arrays.sort(top);
+        for (int i = 0, j = top.length - 1; i < j; i++, j--) {
+            long tmp = top[i];
+            top[i] = top[j];
+            top[j] = tmp;
+        }
+        return top;
+    }
+
+    /**
+     * 计算分位数（nearest-rank），需要开启 keepValues
+     *
+     * @param quantile 分位，取值 [0, 1]，例如 0.99
+     * @return 分位数
+     */
+    public long getQuantile(double quantile) {
+        int index = Summaries.quantileIndex(values != null, quantile, valueSize);
+        if (!sorted) {
+            Arrays.sort(values, 0, valueSize);
+            sorted = true;
+        }
+        return values[index];
+    }
+
+    private void addValue(long value) {
+        if (valueSize == values.length) {
+            values = Arrays.copyOf(values, valueSize << 1);
+        }
+        if (sorted && valueSize > 0 && values[valueSize - 1] > value) {
+            sorted = false;
+        }
+        values[valueSize++] = value;
+    }
+
+    private void offerTop(long value) {
+        if (topSize < topHeap.length) {
+            // 上浮
+            int i = topSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (topHeap[parent] <= value) {
+                    break;
+                }
+                topHeap[i] = topHeap[parent];
+                i = parent;
+            }
+            topHeap[i] = value;
+            return;
+        }
+        if (value <= topHeap[0]) {
+            return;
+        }
+        // 替换堆顶后下沉
+        int i = 0;
+        int half = topSize >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            if (child + 1 < topSize && topHeap[child + 1] < topHeap[child]) {
+                child++;
+            }
+            if (value <= topHeap[child]) {
+                break;
+            }
+            topHeap[i] = topHeap[child];
+            i = child;
+        }
+        topHeap[i] = value;
+    }
+
+    @Override
+    public String toString() {
+        return "LongSummary{count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max
+                + ", average=" + getAverage() + '}';
+    }
+
+}
@@ -2,12 +2,16 @@ package org.madcoder.util.collection;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.madcoder.core.KeyValue;
 
 import java.util.*;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Map 工具类
@@ -16,6 +20,11 @@ import java.util.function.Consumer;
  */
 public class MapUtils {
 
+    /**
+     * keys 数量达到该值时，parallel = true 才会真正并行查找
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
     /**
      * 从哈希表表中，获得 keys 对应的所有 value 数组
      *
@@ -24,14 +33,99 @@ public class MapUtils {
      * @return value 数组
      */
     public static <K, V> List<V> getList(Multimap<K, V> multimap, Collection<K> keys) {
-        List<V> result = new ArrayList<>();
-        keys.forEach(k -> {
-            Collection<V> values = multimap.get(k);
+        // 每个 key 只 get 一次，先汇总 value 数量，再一次性分配结果容量
+        List<Collection<V>> hits = new ArrayList<>(keys.size());
+        int total = 0;
+        for (K key : keys) {
+            Collection<V> values = multimap.get(key);
             if (CollectionUtil.isEmpty(values)) {
-                return;
+                continue;
             }
-            result.addAll(values);
-        });
+            hits.add(values);
+            total += values.size();
+        }
+        return concat(hits, total);
+    }
+
+    /**
+     * 从哈希表表中，获得 keys 对应的所有 value 数组，keys 为原始类型数组，避免构建 Collection&lt;Long&gt;
+     *
+     * @param multimap 哈希表
+     * @param keys keys
+     * @return value 数组
+     */
+    public static <V> List<V> getList(Multimap<Long, V> multimap, long[] keys) {
+        List<Collection<V>> hits = new ArrayList<>(keys.length);
+        int total = 0;
+        for (long key : keys) {
+            Collection<V> values = multimap.get(key);
+            if (CollectionUtil.isEmpty(values)) {
+                continue;
+            }
+            hits.add(values);
+            total += values.size();
+        }
+        return concat(hits, total);
+    }
+
+    /**
+     * 从哈希表表中，获得 keys 对应的所有 value 数组
+     * parallel 为 true 且 keys 数量较多时并行查找，结果顺序与串行一致；并行期间 multimap 不能被修改
+     *
+     * @param multimap 哈希表
+     * @param keys keys
+     * @param parallel 是否并行
+     * @return value 数组
+     */
+    public static <K, V> List<V> getList(Multimap<K, V> multimap, Collection<K> keys, boolean parallel) {
+        if (!parallel || keys.size() < PARALLEL_THRESHOLD) {
+            return getList(multimap, keys);
+        }
+        List<Collection<V>> hits = keys.parallelStream()
+                .map(multimap::get)
+                .filter(CollectionUtil::isNotEmpty)
+                .collect(Collectors.toList());
+        return concat(hits, hits.stream().mapToInt(Collection::size).sum());
+    }
+
+    /**
+     * 从哈希表表中，获得 keys 对应的所有 value 的只读视图，不复制 value
+     * 视图在创建时确定包含哪些 key，之后 multimap 不应再修改
+     *
+     * @param multimap 哈希表
+     * @param keys keys
+     * @return value 只读视图
+     */
+    public static <K, V> Collection<V> getListView(Multimap<K, V> multimap, Collection<K> keys) {
+        List<Collection<V>> hits = new ArrayList<>(keys.size());
+        int total = 0;
+        for (K key : keys) {
+            Collection<V> values = multimap.get(key);
+            if (CollectionUtil.isEmpty(values)) {
+                continue;
+            }
+            hits.add(values);
+            total += values.size();
+        }
+        int size = total;
+        return new AbstractCollection<V>() {
+
+            @Override
+            public Iterator<V> iterator() {
+                return Iterators.unmodifiableIterator(Iterables.concat(hits).iterator());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private static <V> List<V> concat(List<Collection<V>> hits, int total) {
+        List<V> result = new ArrayList<>(total);
+        hits.forEach(result::addAll);
         return result;
     }
 
@@ -56,6 +150,25 @@ public class MapUtils {
         consumer.accept(value);
     }
 
+    /**
+     * 创建并发计数 Map，适用于多线程构建频次统计，热点 key 的并发更新可随 CPU 核数扩展
+     *
+     * @return 并发计数 Map
+     */
+    public static <K> ConcurrentCounterMap<K> newCounterMap() {
+        return new ConcurrentCounterMap<>();
+    }
+
+    /**
+     * 创建并发合并 Map，适用于多线程汇总
+     *
+     * @param mergeFunction 合并函数，必须满足结合律与交换律，例如 Long::sum、Math::max
+     * @return 并发合并 Map
+     */
+    public static <K, V> ConcurrentMergeMap<K, V> newMergeMap(BinaryOperator<V> mergeFunction) {
+        return new ConcurrentMergeMap<>(mergeFunction);
+    }
+
     public static void main(String[] args) {
         List<KeyValue<String, String>> kv = new ArrayList<>();
         KeyValue<String,String> k1 = new KeyValue<>();
@@ -81,4 +194,15 @@ public class MapUtils {
         return map;
     }
 
+    /**
+     * 将键值对转换成 {@link FrozenMap}，适用于构建一次、频繁读取的字典表
+     * 重复 key 时与 {@link #convertMap(List)} 一致：保留第一次出现的位置，value 取最后一个
+     *
+     * @param keyValues 键值对
+     * @return FrozenMap
+     */
+    public static <K, V> FrozenMap<K, V> convertFrozenMap(List<KeyValue<K, V>> keyValues) {
+        return FrozenMap.of(keyValues, KeyValue::getKey, KeyValue::getValue, FrozenMap.DuplicatePolicy.KEEP_LAST);
+    }
+
 }
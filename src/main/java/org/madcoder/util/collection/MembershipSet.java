@@ -0,0 +1,276 @@
+package org.madcoder.util.collection;
+
+import java.util.*;
+
+/**
+ * 预编译的成员判断集合，用于替代 {@link CollectionUtils#containsAny(Object, Object...)}、
+ * {@link org.madcoder.util.object.ObjectUtils#equalsAny(Object, Object[])} 中对固定常量的重复判断
+ * <p>
+ * 通过 {@link #of(Object[])} 一次构建，根据常量类型选择实现：
+ * 1. 小范围非负整数（Integer / Short / Byte / Character）：位图
+ * 2. 同一枚举类型：按 ordinal 的标记数组，相当于 identity set
+ * 3. 字符串：完美哈希表，一次 hashCode 定位槽位，最多一次 equals
+ * 4. 其他：{@link HashSet}
+ * <p>
+ * 构建后不可变，线程安全
+ *
+ * @author madcoder
+ */
+public abstract class MembershipSet<T> {
+
+    /**
+     * 位图支持的最大整数值
+     */
+    private static final int BITSET_MAX_VALUE = 4096;
+    /**
+     * 字符串完美哈希表的最大容量，超过后退化为 HashSet
+     */
+    private static final int PERFECT_HASH_MAX_CAPACITY = 1 << 16;
+
+    private final int size;
+
+    MembershipSet(int size) {
+        this.size = size;
+    }
+
+    /**
+     * 构建成员判断集合
+     *
+     * @param constants 常量
+     * @return 成员判断集合
+     */
+    @SafeVarargs
+    public static <T> MembershipSet<T> of(T... constants) {
+        // 逐个读取，不把可变参数数组传给其他方法
+        List<T> list = new ArrayList<>(constants.length);
+        for (T constant : constants) {
+            list.add(constant);
+        }
+        return of(list);
+    }
+
+    /**
+     * 构建成员判断集合
+     *
+     * @param constants 常量
+     * @return 成员判断集合
+     */
+    public static <T> MembershipSet<T> of(Collection<? extends T> constants) {
+        Set<T> distinct = new LinkedHashSet<>(constants);
+        if (distinct.isEmpty()) {
+            return new HashMembershipSet<>(distinct);
+        }
+        Class<?> type = commonType(distinct);
+        if (type == null) {
+            return new HashMembershipSet<>(distinct);
+        }
+        if (Enum.class.isAssignableFrom(type)) {
+            return new EnumMembershipSet<>(distinct);
+        }
+        if (type == Integer.class || type == Short.class || type == Byte.class || type == Character.class) {
+            MembershipSet<T> bitSet = BitMembershipSet.tryBuild(distinct, type);
+            if (bitSet != null) {
+                return bitSet;
+            }
+        }
+        if (type == String.class) {
+            MembershipSet<T> perfectHash = StringMembershipSet.tryBuild(distinct);
+            if (perfectHash != null) {
+                return perfectHash;
+            }
+        }
+        return new HashMembershipSet<>(distinct);
+    }
+
+    /**
+     * 判断是否包含
+     *
+     * @param value 值，允许为 null
+     * @return 是否包含
+     */
+    public abstract boolean contains(Object value);
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 所有常量是否同一类型，枚举按声明类型判断（带方法体的枚举常量是匿名子类）
+     */
+    private static Class<?> commonType(Set<?> values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null) {
+                return null;
+            }
+            Class<?> current = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+            if (type == null) {
+                type = current;
+            } else if (type != current) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    private static final class BitMembershipSet<T> extends MembershipSet<T> {
+
+        private final Class<?> type;
+        private final long[] words;
+
+        private BitMembershipSet(Class<?> type, long[] words, int size) {
+            super(size);
+            this.type = type;
+            this.words = words;
+        }
+
+        static <T> MembershipSet<T> tryBuild(Set<T> values, Class<?> type) {
+            int max = -1;
+            for (T value : values) {
+                int intValue = toInt(value);
+                if (intValue < 0 || intValue > BITSET_MAX_VALUE) {
+                    return null;
+                }
+                max = Math.max(max, intValue);
+            }
+            long[] words = new long[(max >>> 6) + 1];
+            for (T value : values) {
+                int intValue = toInt(value);
+                words[intValue >>> 6] |= 1L << intValue;
+            }
+            return new BitMembershipSet<>(type, words, values.size());
+        }
+
+        private static int toInt(Object value) {
+            return value instanceof Character ? (Character) value : ((Number) value).intValue();
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            // 与 equals 语义一致：Integer 的集合不包含 Long 1L
+            if (value == null || value.getClass() != type) {
+                return false;
+            }
+            int intValue = toInt(value);
+            int index = intValue >>> 6;
+            return intValue >= 0 && index < words.length && (words[index] & (1L << intValue)) != 0;
+        }
+
+    }
+
+    private static final class EnumMembershipSet<T> extends MembershipSet<T> {
+
+        private final Class<?> type;
+        private final boolean[] flags;
+
+        private EnumMembershipSet(Set<T> values) {
+            super(values.size());
+            Enum<?> first = (Enum<?>) values.iterator().next();
+            this.type = first.getDeclaringClass();
+            this.flags = new boolean[type.getEnumConstants().length];
+            for (T value : values) {
+                flags[((Enum<?>) value).ordinal()] = true;
+            }
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            if (!(value instanceof Enum)) {
+                return false;
+            }
+            Enum<?> e = (Enum<?>) value;
+            return e.getDeclaringClass() == type && flags[e.ordinal()];
+        }
+
+    }
+
+    private static final class StringMembershipSet<T> extends MembershipSet<T> {
+
+        private final String[] table;
+        private final int[] hashes;
+        private final int mask;
+        private final int shift;
+
+        private StringMembershipSet(String[] table, int[] hashes, int shift, int size) {
+            super(size);
+            this.table = table;
+            this.hashes = hashes;
+            this.mask = table.length - 1;
+            this.shift = shift;
+        }
+
+        /**
+         * 寻找无冲突的表容量与扰动位移，类似 switch 对字符串的编译方式：一次 hashCode 即可定位
+         */
+        static <T> MembershipSet<T> tryBuild(Set<T> values) {
+            // hashCode 相同的字符串不可能分到不同槽位
+            Set<Integer> distinctHashes = new HashSet<>();
+            for (T value : values) {
+                if (!distinctHashes.add(value.hashCode())) {
+                    return null;
+                }
+            }
+            int capacity = Integer.highestOneBit(values.size() * 2 - 1) << 1;
+            for (; capacity <= PERFECT_HASH_MAX_CAPACITY; capacity <<= 1) {
+                String[] table = new String[capacity];
+                int[] hashes = new int[capacity];
+                // shift 为 0 时 hash ^ (hash >>> 0) 恒为 0，所有值都落在 0 号槽位，从 1 开始
+                for (int shift = 1; shift < 32; shift++) {
+                    Arrays.fill(table, null);
+                    if (fill(values, table, hashes, shift)) {
+                        return new StringMembershipSet<>(table, hashes, shift, values.size());
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static <T> boolean fill(Set<T> values, String[] table, int[] hashes, int shift) {
+            int mask = table.length - 1;
+            for (T value : values) {
+                String str = (String) value;
+                int hash = str.hashCode();
+                int slot = slot(hash, shift, mask);
+                if (table[slot] != null) {
+                    return false;
+                }
+                table[slot] = str;
+                hashes[slot] = hash;
+            }
+            return true;
+        }
+
+        private static int slot(int hash, int shift, int mask) {
+            return (hash ^ (hash >>> shift)) & mask;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+            int hash = value.hashCode();
+            int slot = slot(hash, shift, mask);
+            String candidate = table[slot];
+            return candidate != null && hashes[slot] == hash && candidate.equals(value);
+        }
+
+    }
+
+    private static final class HashMembershipSet<T> extends MembershipSet<T> {
+
+        private final Set<Object> values;
+
+        private HashMembershipSet(Set<T> values) {
+            super(values.size());
+            this.values = new HashSet<>(values);
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return values.contains(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.madcoder.util.collection;
+
+import org.madcoder.util.json.JsonUtils;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 外部排序、去重、分组使用的磁盘溢写文件
+ * <p>
+ * 记录格式：[long 序号][int 长度][JSON 字节]，序号用于还原输入顺序。
+ * 先顺序写入，{@link #iterator()} 后只读，读取顺序与写入顺序一致
+ *
+ * @author madcoder
+ */
+final class SpillFile<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Class<T> type;
+    private final File file;
+    private DataOutputStream out;
+    /**
+     * 最近一次 {@link #iterator()} 打开的读取，删除时一并关闭
+     */
+    private RecordIterator<T> reader;
+    private long size;
+
+    SpillFile(Class<T> type) {
+        this.type = type;
+        try {
+            // 由使用方显式删除，不使用 deleteOnExit：它会在 JVM 退出前一直持有文件路径，长期运行的服务中不断增长
+            this.file = File.createTempFile("spill", ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 计算 key 在第 depth 层溢写时的分区
+     * 每层使用不同的种子再经过 murmur3 的 fmix64 充分混合，上一层同一分区的 key 在下一层重新均匀分布
+     */
+    static int partition(Object key, int depth, int partitions) {
+        long h = Objects.hashCode(key) ^ ((depth + 1) * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) partitions);
+    }
+
+    void write(long seq, T value) {
+        byte[] bytes = JsonUtils.toJsonByte(value);
+        try {
+            out.writeLong(seq);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size++;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * 结束写入，释放写缓冲与文件句柄；之后只能读取
+     */
+    void finish() {
+        closeOutput();
+    }
+
+    /**
+     * 结束写入，按写入顺序读取所有记录；读取完毕或 {@link #delete()} 时自动关闭文件
+     */
+    RecordIterator<T> iterator() {
+        closeOutput();
+        try {
+            reader = new RecordIterator<>(type, new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)), size);
+            return reader;
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 关闭未读完的读取并删除文件，可以重复调用
+     */
+    void delete() {
+        try {
+            closeOutput();
+        } finally {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+            // 关闭后删除，删除失败（例如文件已被外部删除）时不再处理
+            file.delete();
+        }
+    }
+
+    private void closeOutput() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * 溢写记录
+     */
+    static final class Record<T> {
+
+        final long seq;
+        final T value;
+
+        Record(long seq, T value) {
+            this.seq = seq;
+            this.value = value;
+        }
+
+    }
+
+    static final class RecordIterator<T> implements Iterator<Record<T>>, Closeable {
+
+        private final Class<T> type;
+        private final DataInputStream in;
+        private long remaining;
+
+        private RecordIterator(Class<T> type, DataInputStream in, long remaining) {
+            this.type = type;
+            this.in = in;
+            this.remaining = remaining;
+            if (remaining == 0) {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Record<T> next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                long seq = in.readLong();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                if (--remaining == 0) {
+                    close();
+                }
+                return new Record<>(seq, JsonUtils.parseObject(bytes, type));
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // 只读文件，关闭失败不影响结果
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.madcoder.util.collection;
+
+/**
+ * {@link LongSummary}、{@link DoubleSummary} 共用的参数校验与分位计算
+ * <p>
+ * 堆与值数组仍按原始类型分别实现，避免装箱
+ *
+ * @author madcoder
+ */
+final class Summaries {
+
+    private Summaries() {
+    }
+
+    static void checkTopK(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK 不能小于 0");
+        }
+    }
+
+    /**
+     * 计算分位数（nearest-rank）在排序后的值数组中的下标
+     *
+     * @param keepValues 是否开启了 keepValues
+     * @param quantile   分位，取值 [0, 1]
+     * @param size       值的数量
+     * @return 下标
+     */
+    static int quantileIndex(boolean keepValues, double quantile, int size) {
+        if (!keepValues) {
+            throw new IllegalStateException("未开启 keepValues，无法计算分位数");
+        }
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile 取值范围为 [0, 1]");
+        }
+        if (size == 0) {
+            throw new IllegalStateException("没有数据，无法计算分位数");
+        }
+        int rank = (int) Math.ceil(quantile * size);
+        return Math.max(rank, 1) - 1;
+    }
+
+}
@@ -0,0 +1,348 @@
+package org.madcoder.util.date;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.madcoder.util.date.DateUtils.*;
+
+/**
+ * 时间格式化工具类，用于 {@link DateUtils} 中的 FORMAT_ 格式
+ * <p>
+ * 1. 预编译的 {@link DateTimeFormatter}，线程安全，无需每次创建 SimpleDateFormat 或加锁
+ * 2. yyyy-MM-dd HH:mm:ss、yyyy-MM-dd、HH:mm:ss 三种固定格式手写格式化与解析，不经过 DateTimeFormatter；
+ * 超出常规取值范围的输入交给 DateTimeFormatter，保证结果（包括异常）与之一致
+ * 3. 按毫秒时间戳格式化时，缓存最近一秒的结果，适用于日志、JSON 中大量相近的时间戳
+ *
+ * @author madcoder
+ */
+public class DateFormatUtils {
+
+    public static final DateTimeFormatter YEAR_MONTH_DAY = DateTimeFormatter.ofPattern(FORMAT_YEAR_MONTH_DAY);
+
+    public static final DateTimeFormatter YEAR_MONTH_DAY_HOUR_MINUTE_SECOND = DateTimeFormatter.ofPattern(FORMAT_YEAR_MONTH_DAY_HOUR_MINUTE_SECOND);
+
+    public static final DateTimeFormatter HOUR_MINUTE_SECOND = DateTimeFormatter.ofPattern(FORMAT_HOUR_MINUTE_SECOND);
+
+    private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    static {
+        FORMATTERS.put(FORMAT_YEAR_MONTH_DAY, YEAR_MONTH_DAY);
+        FORMATTERS.put(FORMAT_YEAR_MONTH_DAY_HOUR_MINUTE_SECOND, YEAR_MONTH_DAY_HOUR_MINUTE_SECOND);
+        FORMATTERS.put(FORMAT_HOUR_MINUTE_SECOND, HOUR_MINUTE_SECOND);
+    }
+
+    /**
+     * 最近一次按毫秒时间戳格式化的结果
+     */
+    private static volatile CachedSecond lastSecond = new CachedSecond(Long.MIN_VALUE, null, null);
+
+    /**
+     * 获得格式对应的 DateTimeFormatter，按格式缓存
+     *
+     * @param pattern 格式
+     * @return DateTimeFormatter
+     */
+    public static DateTimeFormatter getFormatter(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter != null) {
+            return formatter;
+        }
+        return FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    /**
+     * 按指定格式格式化
+     *
+     * @param time    时间
+     * @param pattern 格式
+     * @return 格式化结果，time 为 null 时返回 null
+     */
+    public static String format(TemporalAccessor time, String pattern) {
+        return time != null ? getFormatter(pattern).format(time) : null;
+    }
+
+    /**
+     * 按 yyyy-MM-dd HH:mm:ss 格式化
+     *
+     * @param time 时间
+     * @return 格式化结果，time 为 null 时返回 null
+     */
+    public static String format(LocalDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        if (!isFastYear(time.getYear())) {
+            return YEAR_MONTH_DAY_HOUR_MINUTE_SECOND.format(time);
+        }
+        char[] chars = new char[19];
+        writeDate(chars, 0, time.getYear(), time.getMonthValue(), time.getDayOfMonth());
+        chars[10] = ' ';
+        writeTime(chars, 11, time.getHour(), time.getMinute(), time.getSecond());
+        return new String(chars);
+    }
+
+    /**
+     * 按默认时区、yyyy-MM-dd HH:mm:ss 格式化
+     *
+     * @param date 时间
+     * @return 格式化结果，date 为 null 时返回 null
+     */
+    public static String format(Date date) {
+        return date != null ? format(date.getTime()) : null;
+    }
+
+    /**
+     * 按默认时区、yyyy-MM-dd HH:mm:ss 格式化毫秒时间戳
+     * <p>
+     * 同一秒内的时间戳直接返回上一次的结果，连续格式化相近的时间戳时几乎没有开销
+     *
+     * @param epochMilli 毫秒时间戳
+     * @return 格式化结果
+     */
+    public static String format(long epochMilli) {
+        long second = Math.floorDiv(epochMilli, 1000);
+        DefaultZone zone = DefaultZone.get();
+        CachedSecond cached = lastSecond;
+        if (cached.second == second && cached.zone == zone) {
+            return cached.text;
+        }
+        String text = format(zone.ofEpochMilli(epochMilli));
+        lastSecond = new CachedSecond(second, zone, text);
+        return text;
+    }
+
+    /**
+     * 按 yyyy-MM-dd 格式化
+     *
+     * @param date 日期
+     * @return 格式化结果，date 为 null 时返回 null
+     */
+    public static String formatDate(LocalDate date) {
+        if (date == null) {
+            return null;
+        }
+        if (!isFastYear(date.getYear())) {
+            return YEAR_MONTH_DAY.format(date);
+        }
+        char[] chars = new char[10];
+        writeDate(chars, 0, date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        return new String(chars);
+    }
+
+    /**
+     * 按 HH:mm:ss 格式化
+     *
+     * @param time 时间
+     * @return 格式化结果，time 为 null 时返回 null
+     */
+    public static String formatTime(LocalTime time) {
+        if (time == null) {
+            return null;
+        }
+        char[] chars = new char[8];
+        writeTime(chars, 0, time.getHour(), time.getMinute(), time.getSecond());
+        return new String(chars);
+    }
+
+    /**
+     * 按 yyyy-MM-dd HH:mm:ss 格式化并追加到 StringBuilder，不创建中间字符串
+     *
+     * @param builder 目标
+     * @param time    时间，为 null 时不追加任何内容
+     * @return builder
+     */
+    public static StringBuilder formatTo(StringBuilder builder, LocalDateTime time) {
+        if (time == null) {
+            return builder;
+        }
+        if (!isFastYear(time.getYear())) {
+            YEAR_MONTH_DAY_HOUR_MINUTE_SECOND.formatTo(time, builder);
+            return builder;
+        }
+        int year = time.getYear();
+        builder.append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10));
+        appendTwoDigits(builder.append('-'), time.getMonthValue());
+        appendTwoDigits(builder.append('-'), time.getDayOfMonth());
+        appendTwoDigits(builder.append(' '), time.getHour());
+        appendTwoDigits(builder.append(':'), time.getMinute());
+        appendTwoDigits(builder.append(':'), time.getSecond());
+        return builder;
+    }
+
+    /**
+     * 按指定格式解析
+     *
+     * @param text    字符串
+     * @param pattern 格式
+     * @return 时间，text 为 null 时返回 null
+     * @throws java.time.format.DateTimeParseException 格式不合法时抛出
+     */
+    public static LocalDateTime parse(CharSequence text, String pattern) {
+        return text != null ? LocalDateTime.parse(text, getFormatter(pattern)) : null;
+    }
+
+    /**
+     * 按 yyyy-MM-dd HH:mm:ss 解析
+     *
+     * @param text 字符串
+     * @return 时间，text 为 null 时返回 null
+     * @throws java.time.format.DateTimeParseException 格式不合法时抛出，与 DateTimeFormatter 一致
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == 19 && text.charAt(10) == ' ' && text.charAt(13) == ':' && text.charAt(16) == ':') {
+            int year = readDigits(text, 0, 4);
+            int month = readTwoDigits(text, 5);
+            int day = readTwoDigits(text, 8);
+            int hour = readTwoDigits(text, 11);
+            int minute = readTwoDigits(text, 14);
+            int second = readTwoDigits(text, 17);
+            if (text.charAt(4) == '-' && text.charAt(7) == '-' && isValidDate(year, month, day)
+                    && isValidTime(hour, minute, second)) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        // 非常规输入交给 DateTimeFormatter，保证解析规则与异常信息一致
+        return LocalDateTime.parse(text, YEAR_MONTH_DAY_HOUR_MINUTE_SECOND);
+    }
+
+    /**
+     * 按默认时区、yyyy-MM-dd HH:mm:ss 解析为 Date
+     *
+     * @param text 字符串
+     * @return 时间，text 为 null 时返回 null
+     */
+    public static Date parseToDate(CharSequence text) {
+        return text != null ? DateUtils.of(parse(text)) : null;
+    }
+
+    /**
+     * 按 yyyy-MM-dd 解析
+     *
+     * @param text 字符串
+     * @return 日期，text 为 null 时返回 null
+     */
+    public static LocalDate parseDate(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = readDigits(text, 0, 4);
+            int month = readTwoDigits(text, 5);
+            int day = readTwoDigits(text, 8);
+            if (isValidDate(year, month, day)) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(text, YEAR_MONTH_DAY);
+    }
+
+    /**
+     * 按 HH:mm:ss 解析
+     *
+     * @param text 字符串
+     * @return 时间，text 为 null 时返回 null
+     */
+    public static LocalTime parseTime(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == 8 && text.charAt(2) == ':' && text.charAt(5) == ':') {
+            int hour = readTwoDigits(text, 0);
+            int minute = readTwoDigits(text, 3);
+            int second = readTwoDigits(text, 6);
+            if (isValidTime(hour, minute, second)) {
+                return LocalTime.of(hour, minute, second);
+            }
+        }
+        return LocalTime.parse(text, HOUR_MINUTE_SECOND);
+    }
+
+    private static boolean isFastYear(int year) {
+        // yyyy 是公元纪年，4 位以内的正数年份才是固定宽度
+        return year >= 1 && year <= 9999;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        // 超出月份天数的日期，DateTimeFormatter 的 SMART 模式会调整或报错，交给它处理
+        return year >= 1 && month >= 1 && month <= 12 && day >= 1
+                && (day <= 28 || day <= LocalDate.of(year, month, 1).lengthOfMonth());
+    }
+
+    private static boolean isValidTime(int hour, int minute, int second) {
+        return hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    private static void writeDate(char[] chars, int offset, int year, int month, int day) {
+        chars[offset] = (char) ('0' + year / 1000);
+        chars[offset + 1] = (char) ('0' + year / 100 % 10);
+        chars[offset + 2] = (char) ('0' + year / 10 % 10);
+        chars[offset + 3] = (char) ('0' + year % 10);
+        chars[offset + 4] = '-';
+        writeTwoDigits(chars, offset + 5, month);
+        chars[offset + 7] = '-';
+        writeTwoDigits(chars, offset + 8, day);
+    }
+
+    private static void writeTime(char[] chars, int offset, int hour, int minute, int second) {
+        writeTwoDigits(chars, offset, hour);
+        chars[offset + 2] = ':';
+        writeTwoDigits(chars, offset + 3, minute);
+        chars[offset + 5] = ':';
+        writeTwoDigits(chars, offset + 6, second);
+    }
+
+    private static void writeTwoDigits(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void appendTwoDigits(StringBuilder builder, int value) {
+        builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * @return 非数字时返回 -1
+     */
+    private static int readTwoDigits(CharSequence text, int offset) {
+        return readDigits(text, offset, 2);
+    }
+
+    private static int readDigits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 某一秒的格式化结果
+     */
+    private static final class CachedSecond {
+
+        private final long second;
+        private final DefaultZone zone;
+        private final String text;
+
+        private CachedSecond(long second, DefaultZone zone, String text) {
+            this.second = second;
+            this.zone = zone;
+            this.text = text;
+        }
+
+    }
+
+}
@@ -1,10 +1,9 @@
 package org.madcoder.util.date;
 
-import cn.hutool.core.date.LocalDateTimeUtil;
-
 import java.time.*;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Objects;
 
 /**
  * 时间工具类
@@ -30,6 +29,19 @@ public class DateUtils {
 
     public static final String FORMAT_HOUR_MINUTE_SECOND = "HH:mm:ss";
 
+    /**
+     * 非固定偏移时区直接计算的年份范围：范围之外 TimeZone 与 java.time 的时区数据可能不一致
+     * （更早的地方平时、儒略历，以及 TimeZone 在 2037 年之后只按最后一条规则推算），交给 Calendar 处理
+     */
+    private static final int MIN_FAST_YEAR = 1970;
+    private static final int MAX_FAST_YEAR = 2037;
+    private static final long MIN_FAST_EPOCH_DAY = LocalDate.of(MIN_FAST_YEAR, 1, 1).toEpochDay();
+    private static final long MAX_FAST_EPOCH_DAY = LocalDate.of(MAX_FAST_YEAR, 12, 31).toEpochDay();
+    private static final long FIXED_MIN_EPOCH_DAY = LocalDate.of(1583, 1, 1).toEpochDay();
+    private static final long FIXED_MAX_EPOCH_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+
+    private static volatile MillisClock clock = MillisClock.system();
+
 
     /**
      * 将 LocalDateTime 转换成 Date
@@ -41,12 +53,8 @@ public class DateUtils {
         if (date == null) {
             return null;
         }
-        // 将此日期时间与时区相结合以创建 ZonedDateTime
-        ZonedDateTime zonedDateTime = date.atZone(ZoneId.systemDefault());
-        // 本地时间线 LocalDateTime 到即时时间线 Instant 时间戳
-        Instant instant = zonedDateTime.toInstant();
-        // UTC时间(世界协调时间,UTC + 00:00)转北京(北京,UTC + 8:00)时间
-        return Date.from(instant);
+        // 使用缓存的默认时区，等价于 Date.from(date.atZone(ZoneId.systemDefault()).toInstant())
+        return new Date(DefaultZone.get().toEpochMilli(date));
     }
 
 
@@ -62,30 +70,76 @@ public class DateUtils {
         if (date == null) {
             return null;
         }
-        // 转为时间戳
-        Instant instant = date.toInstant();
-        // UTC时间(世界协调时间,UTC + 00:00)转北京(北京,UTC + 8:00)时间
-        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+        // 使用缓存的默认时区，等价于 LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())
+        return DefaultZone.get().ofEpochMilli(date.getTime());
+    }
+
+    /**
+     * 将 LocalDateTime 按默认时区转换成毫秒时间戳
+     *
+     * @param date LocalDateTime
+     * @return 毫秒时间戳
+     */
+    public static long toEpochMilli(LocalDateTime date) {
+        return DefaultZone.get().toEpochMilli(date);
+    }
+
+    /**
+     * 将毫秒时间戳按默认时区转换成 LocalDateTime
+     *
+     * @param epochMilli 毫秒时间戳
+     * @return LocalDateTime
+     */
+    public static LocalDateTime ofEpochMilli(long epochMilli) {
+        return DefaultZone.get().ofEpochMilli(epochMilli);
+    }
+
+    /**
+     * 替换“当前时间”的来源，默认为 {@link MillisClock#system()}
+     * <p>
+     * 例如，大量判断过期时间的应用可以使用 {@link MillisClock#cached(Duration)}，测试中可以使用 {@link MillisClock#manual(long)}
+     *
+     * @param clock 时钟
+     */
+    public static void setClock(MillisClock clock) {
+        DateUtils.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * @return 当前使用的时钟
+     */
+    public static MillisClock getClock() {
+        return clock;
+    }
+
+    /**
+     * 重新读取系统默认时区
+     * <p>
+     * 默认时区在首次使用时解析并缓存，运行期间通过 {@link java.util.TimeZone#setDefault} 修改默认时区后需要调用本方法；
+     * 使用 {@link MillisClock#cached(Duration)} 时，一秒内也会自动检测到变化
+     */
+    public static void refreshDefaultZone() {
+        DefaultZone.refresh();
     }
 
 
 
     public static Date addTime(Duration duration) {
-        return new Date(System.currentTimeMillis() + duration.toMillis());
+        return new Date(clock.millis() + duration.toMillis());
     }
 
 
 
 
     public static boolean isExpired(Date time) {
-        return System.currentTimeMillis() > time.getTime();
+        return clock.millis() > time.getTime();
     }
 
 
 
 
     public static boolean isExpired(LocalDateTime time) {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = clock.now();
         return now.isAfter(time);
     }
 
@@ -123,6 +177,15 @@ public class DateUtils {
      */
     public static Date buildTime(int year, int mouth, int day,
                                  int hour, int minute, int second) {
+        DefaultZone zone = DefaultZone.get();
+        // 常规取值直接计算；超出范围的取值（Calendar 宽松模式下会进位）、过早的年份、夏令时切换时刻交给 Calendar
+        if (isFastYear(zone, year) && mouth >= 1 && mouth <= 12 && day >= 1 && day <= 28
+                && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+            LocalDateTime time = LocalDateTime.of(year, mouth, day, hour, minute, second);
+            if (!zone.isTransition(time)) {
+                return new Date(zone.toEpochMilli(time));
+            }
+        }
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.YEAR, year);
         calendar.set(Calendar.MONTH, mouth - 1);
@@ -185,6 +248,32 @@ public class DateUtils {
         if (amount == 0) {
             return date;
         }
+        long time = date != null ? date.getTime() : clock.millis();
+        switch (field) {
+            // 时分秒与 Calendar#add 一样，直接按毫秒加减
+            case Calendar.HOUR:
+            case Calendar.HOUR_OF_DAY:
+                return new Date(time + amount * 3600_000L);
+            case Calendar.MINUTE:
+                return new Date(time + amount * 60_000L);
+            case Calendar.SECOND:
+                return new Date(time + amount * SECOND_MILLIS);
+            case Calendar.MILLISECOND:
+                return new Date(time + amount);
+            // 年月日按本地时间加减，月末的处理与 Calendar 一致（1 月 31 日加 1 个月为 2 月的最后一天）
+            case Calendar.YEAR:
+            case Calendar.MONTH:
+            case Calendar.DAY_OF_MONTH:
+            case Calendar.DAY_OF_YEAR:
+            case Calendar.DAY_OF_WEEK:
+                Date result = addLocalDate(time, field, amount);
+                if (result != null) {
+                    return result;
+                }
+                break;
+            default:
+                break;
+        }
         Calendar c = Calendar.getInstance();
         if (date != null) {
             c.setTime(date);
@@ -193,6 +282,49 @@ public class DateUtils {
         return c.getTime();
     }
 
+    /**
+     * 按本地时间加减年月日，与 Calendar#add 的结果一致；Calendar 有不同处理的情况返回 null
+     */
+    private static Date addLocalDate(long time, int field, int amount) {
+        DefaultZone zone = DefaultZone.get();
+        long offset = zone.offsetMillis(time);
+        long local = time + offset;
+        long fromDay = Math.floorDiv(local, DefaultZone.DAY_MILLIS);
+        if (!isFastDay(zone, fromDay)) {
+            return null;
+        }
+        if (field == Calendar.YEAR || field == Calendar.MONTH) {
+            LocalDateTime from = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000), (int) Math.floorMod(local, 1000L) * 1_000_000, ZoneOffset.UTC);
+            LocalDateTime to = field == Calendar.YEAR ? from.plusYears(amount) : from.plusMonths(amount);
+            // 落在夏令时切换时刻时，Calendar 按字段重新计算时间的规则与 java.time 不同
+            if (!isFastDay(zone, to.toLocalDate().toEpochDay()) || zone.isTransition(to)) {
+                return null;
+            }
+            return new Date(zone.toEpochMilli(to));
+        }
+        long toDay = fromDay + amount;
+        if (!isFastDay(zone, toDay)) {
+            return null;
+        }
+        // 与 Calendar 相同：保持时分秒不变，先按原偏移量计算；偏移量发生变化时修正，但修正后跨天则不修正
+        long result = toDay * DefaultZone.DAY_MILLIS + Math.floorMod(local, DefaultZone.DAY_MILLIS) - offset;
+        long diff = offset - zone.offsetMillis(result);
+        if (diff != 0 && zone.epochDay(result + diff) == toDay) {
+            result += diff;
+        }
+        return new Date(result);
+    }
+
+    private static boolean isFastYear(DefaultZone zone, int year) {
+        // 固定偏移时区没有历史数据的差异，只需避开儒略历
+        return zone.isFixedOffset() ? year > 1582 && year <= 9999 : year >= MIN_FAST_YEAR && year <= MAX_FAST_YEAR;
+    }
+
+    private static boolean isFastDay(DefaultZone zone, long epochDay) {
+        return zone.isFixedOffset() ? epochDay >= FIXED_MIN_EPOCH_DAY && epochDay <= FIXED_MAX_EPOCH_DAY
+                : epochDay >= MIN_FAST_EPOCH_DAY && epochDay <= MAX_FAST_EPOCH_DAY;
+    }
+
     /**
      * 是否今天
      *
@@ -200,7 +332,11 @@ public class DateUtils {
      * @return 是否
      */
     public static boolean isToday(LocalDateTime date) {
-        return LocalDateTimeUtil.isSameDay(date, LocalDateTime.now());
+        // 与 LocalDateTimeUtil.isSameDay 一致，date 为 null 时返回 false
+        if (date == null) {
+            return false;
+        }
+        return date.toLocalDate().toEpochDay() == clock.today();
     }
 
 
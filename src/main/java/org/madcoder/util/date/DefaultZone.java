@@ -0,0 +1,111 @@
+package org.madcoder.util.date;
+
+import java.time.*;
+import java.time.zone.ZoneRules;
+import java.util.TimeZone;
+
+/**
+ * 缓存的系统默认时区及其规则
+ * <p>
+ * {@link ZoneId#systemDefault()} 每次调用都要把 {@link TimeZone} 转换为 ZoneId 并查找规则，
+ * 这里只解析一次，{@link #get()} 只是一次 volatile 读；固定偏移的时区（如 {@link DateUtils#TIME_ZONE_DEFAULT}）直接用偏移量做毫秒运算，不查询规则。
+ * 运行期间通过 {@link TimeZone#setDefault} 修改默认时区后，需要调用 {@link DateUtils#refreshDefaultZone()}；
+ * 使用 {@link MillisClock#cached(java.time.Duration)} 时，刷新线程每秒最多检查一次默认时区，变化后自动重新解析。
+ *
+ * @author madcoder
+ */
+final class DefaultZone {
+
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static volatile DefaultZone current = new DefaultZone(TimeZone.getDefault());
+
+    /**
+     * 创建时的默认时区，用于 {@link #refreshIfChanged()} 判断默认时区是否变化
+     */
+    private final TimeZone timeZone;
+    final ZoneId zone;
+    final ZoneRules rules;
+    final Clock clock;
+    /**
+     * 固定偏移时区的偏移量，非固定偏移时为 null
+     */
+    private final ZoneOffset fixedOffset;
+    private final long fixedOffsetMillis;
+
+    private DefaultZone(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.zone = timeZone.toZoneId();
+        this.rules = zone.getRules();
+        this.clock = Clock.system(zone);
+        this.fixedOffset = rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH) : null;
+        this.fixedOffsetMillis = fixedOffset != null ? fixedOffset.getTotalSeconds() * 1000L : 0L;
+    }
+
+    static DefaultZone get() {
+        return current;
+    }
+
+    static void refresh() {
+        current = new DefaultZone(TimeZone.getDefault());
+    }
+
+    /**
+     * 默认时区变化时重新解析；TimeZone.getDefault() 每次都会 clone，只在后台低频调用
+     */
+    static void refreshIfChanged() {
+        // 返回的是副本，只能按 equals 比较（ZoneInfo 只比较 ID、偏移量与校验和）
+        TimeZone timeZone = TimeZone.getDefault();
+        if (!timeZone.equals(current.timeZone)) {
+            current = new DefaultZone(timeZone);
+        }
+    }
+
+    boolean isFixedOffset() {
+        return fixedOffset != null;
+    }
+
+    /**
+     * 与 date.atZone(zone).toInstant().toEpochMilli() 结果一致
+     */
+    long toEpochMilli(LocalDateTime date) {
+        // ZoneRules#getOffset(LocalDateTime) 在间隙中返回间隙前的偏移量，
+        // 与 ZonedDateTime 把时间后移一个间隙长度再用间隙后偏移量得到的是同一个时刻；重叠时两者都取较早的偏移量
+        ZoneOffset offset = fixedOffset != null ? fixedOffset : rules.getOffset(date);
+        return date.toEpochSecond(offset) * 1000 + date.getNano() / 1_000_000;
+    }
+
+    /**
+     * 与 LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), zone) 结果一致
+     */
+    LocalDateTime ofEpochMilli(long epochMilli) {
+        long local = epochMilli + offsetMillis(epochMilli);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000), (int) Math.floorMod(local, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * @return epochMilli 时刻的偏移量，单位毫秒
+     */
+    long offsetMillis(long epochMilli) {
+        return fixedOffset != null ? fixedOffsetMillis : rules.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * @return epochMilli 时刻在本时区的日期，自 1970-01-01 起的天数
+     */
+    long epochDay(long epochMilli) {
+        return Math.floorDiv(epochMilli + offsetMillis(epochMilli), DAY_MILLIS);
+    }
+
+    /**
+     * @return 本地时间是否处于夏令时等切换造成的间隙或重叠中
+     */
+    boolean isTransition(LocalDateTime date) {
+        return fixedOffset == null && rules.getTransition(date) != null;
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+}
@@ -0,0 +1,334 @@
+package org.madcoder.util.date;
+
+import org.madcoder.core.KeyValue;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 时间段索引，用于批量的时间段重叠检测，替代两两调用 {@link LocalDateTimeUtils#checkTimeOverlap} 的 O(n²) 比较
+ * <p>
+ * 时间段均为左闭右开区间 [start, end)，重叠的判断与 checkTimeOverlap 一致：start1 &lt; end2 且 end1 &gt; start2。
+ * 1. {@link #overlappingPairs()}：按开始时间排序后扫描，维护按结束时间排序的活动集合，O(n log n + 结果数)
+ * 2. {@link #overlapping(Comparable, Comparable)}：在按开始时间排序的数组上构建隐式的区间树（每个子树记录最大结束时间），
+ * O(log n + 结果数)
+ * <p>
+ * {@link #ofTimeOfDay} 创建的索引中，结束时间早于开始时间的时间段视为跨过午夜，例如 22:00 ~ 02:00；
+ * 开始与结束时间相同的时间段为空，不与任何时间段重叠。构建完成后不可变，线程安全。
+ *
+ * @param <K> 时间类型，例如 {@link java.time.LocalDateTime}、{@link LocalTime}
+ * @param <E> 时间段对应的元素
+ * @author madcoder
+ */
+public final class IntervalIndex<K extends Comparable<? super K>, E> {
+
+    private static final long DAY_NANOS = 24L * 60 * 60 * 1_000_000_000L;
+
+    /**
+     * 按开始时间排序的时间段；跨午夜的时间段拆成两段，共用同一个 id
+     */
+    private final E[] items;
+    private final int[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    /**
+     * 隐式区间树中，以该下标为根的子树的最大结束时间
+     */
+    private final long[] maxEnds;
+    /**
+     * 非空时，时间映射为其在所有端点中的排名；为空时为一天中的纳秒数
+     */
+    private final K[] points;
+    private final boolean split;
+
+    @SuppressWarnings("unchecked")
+    private IntervalIndex(List<E> items, int[] ids, long[] starts, long[] ends, K[] points) {
+        int size = items.size();
+        // 按开始时间排序
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        this.items = (E[]) new Object[size];
+        this.ids = new int[size];
+        this.starts = new long[size];
+        this.ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            this.items[i] = items.get(from);
+            this.ids[i] = ids[from];
+            this.starts[i] = starts[from];
+            this.ends[i] = ends[from];
+        }
+        // 拆分的两段在排序前是相邻的
+        this.split = hasDuplicateId(ids);
+        this.maxEnds = new long[size];
+        buildMaxEnds(0, size);
+        this.points = points;
+    }
+
+    /**
+     * 创建时间段索引，适用于 {@link java.time.LocalDateTime} 等任意可比较的时间
+     * 结束时间不晚于开始时间的时间段为空，会被忽略
+     *
+     * @param from  元素
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 索引
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, E> IntervalIndex<K, E> of(Collection<E> from, Function<? super E, ? extends K> start,
+                                                                             Function<? super E, ? extends K> end) {
+        List<E> items = new ArrayList<>(from.size());
+        List<K> startList = new ArrayList<>(from.size());
+        List<K> endList = new ArrayList<>(from.size());
+        for (E item : from) {
+            K s = start.apply(item);
+            K e = end.apply(item);
+            if (s.compareTo(e) < 0) {
+                items.add(item);
+                startList.add(s);
+                endList.add(e);
+            }
+        }
+        // 所有端点排序去重，时间映射为排名，之后全部使用 long 比较
+        List<K> all = new ArrayList<>(startList.size() * 2);
+        all.addAll(startList);
+        all.addAll(endList);
+        all.sort(null);
+        int distinct = 0;
+        for (int i = 0; i < all.size(); i++) {
+            if (distinct == 0 || all.get(i).compareTo(all.get(distinct - 1)) != 0) {
+                all.set(distinct++, all.get(i));
+            }
+        }
+        K[] points = (K[]) all.subList(0, distinct).toArray(new Comparable<?>[0]);
+        int size = items.size();
+        int[] ids = new int[size];
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+            starts[i] = Arrays.binarySearch(points, startList.get(i));
+            ends[i] = Arrays.binarySearch(points, endList.get(i));
+        }
+        return new IntervalIndex<>(items, ids, starts, ends, points);
+    }
+
+    /**
+     * 创建一天之内的时间段索引，结束时间早于开始时间的时间段视为跨过午夜
+     *
+     * @param from  元素
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 索引
+     */
+    public static <E> IntervalIndex<LocalTime, E> ofTimeOfDay(Collection<E> from, Function<? super E, LocalTime> start,
+                                                             Function<? super E, LocalTime> end) {
+        List<E> items = new ArrayList<>(from.size());
+        int[] ids = new int[from.size() * 2];
+        long[] starts = new long[from.size() * 2];
+        long[] ends = new long[from.size() * 2];
+        int id = 0;
+        for (E item : from) {
+            long s = start.apply(item).toNanoOfDay();
+            long e = end.apply(item).toNanoOfDay();
+            if (s < e) {
+                add(items, ids, starts, ends, item, id, s, e);
+            } else if (s > e) {
+                // 跨过午夜，拆成 [start, 24:00) 与 [00:00, end)
+                add(items, ids, starts, ends, item, id, s, DAY_NANOS);
+                if (e > 0) {
+                    add(items, ids, starts, ends, item, id, 0, e);
+                }
+            }
+            id++;
+        }
+        int size = items.size();
+        return new IntervalIndex<>(items, Arrays.copyOf(ids, size), Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), null);
+    }
+
+    private static <E> void add(List<E> items, int[] ids, long[] starts, long[] ends, E item, int id, long start, long end) {
+        int i = items.size();
+        items.add(item);
+        ids[i] = id;
+        starts[i] = start;
+        ends[i] = end;
+    }
+
+    /**
+     * @return 索引中的时间段数量，跨午夜的时间段计为两段
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * 获得所有互相重叠的元素对，每对只返回一次，key 为开始时间较早的元素
+     *
+     * @return 重叠的元素对
+     */
+    public List<KeyValue<E, E>> overlappingPairs() {
+        List<KeyValue<E, E>> result = new ArrayList<>();
+        // 跨午夜的元素拆成了两段，同一对元素可能重叠两次，需要去重
+        Set<Long> seen = split ? new HashSet<>() : null;
+        PriorityQueue<Integer> active = new PriorityQueue<>((a, b) -> Long.compare(ends[a], ends[b]));
+        for (int i = 0; i < items.length; i++) {
+            // 移除已经结束的时间段，剩下的都与当前时间段重叠
+            while (!active.isEmpty() && ends[active.peek()] <= starts[i]) {
+                active.poll();
+            }
+            for (int j : active) {
+                if (ids[i] == ids[j]) {
+                    continue;
+                }
+                if (seen != null && !seen.add(pairKey(ids[i], ids[j]))) {
+                    continue;
+                }
+                result.add(new KeyValue<>(items[j], items[i]));
+            }
+            active.add(i);
+        }
+        return result;
+    }
+
+    /**
+     * 获得与 [start, end) 重叠的元素，按开始时间排序（跨午夜的查询先返回午夜之前的部分）
+     * 一天之内的索引中，end 早于 start 时视为跨过午夜
+     *
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 重叠的元素
+     */
+    public List<E> overlapping(K start, K end) {
+        List<E> result = new ArrayList<>();
+        query(start, end, result);
+        return result;
+    }
+
+    /**
+     * 判断是否存在与 [start, end) 重叠的元素
+     *
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 是否存在
+     */
+    public boolean overlapsAny(K start, K end) {
+        // 不收集结果，找到第一个重叠的元素即停止
+        return query(start, end, null);
+    }
+
+    /**
+     * @param result 收集重叠的元素；为 null 时只判断是否存在
+     * @return result 为 null 时返回是否存在重叠的元素，否则返回 false
+     */
+    private boolean query(K start, K end, List<E> result) {
+        if (points != null) {
+            // 排名：start 之前（包含）的端点数 - 1 作为下界，end 之前（不包含）的端点数作为上界
+            long lower = upperBound(start) - 1;
+            long upper = lowerBound(end);
+            return query(0, items.length, lower, upper, result, null);
+        }
+        long s = ((LocalTime) start).toNanoOfDay();
+        long e = ((LocalTime) end).toNanoOfDay();
+        // 只判断是否存在时不需要去重
+        if (s < e) {
+            return query(0, items.length, s, e, result, split && result != null ? new HashSet<>() : null);
+        }
+        if (s > e) {
+            Set<Integer> seen = result != null ? new HashSet<>() : null;
+            return query(0, items.length, s, DAY_NANOS, result, seen) || query(0, items.length, 0, e, result, seen);
+        }
+        return false;
+    }
+
+    /**
+     * 查询 [lo, hi) 子树中满足 start &lt; upper 且 end &gt; lower 的时间段
+     *
+     * @return result 为 null 时，找到第一个即返回 true；否则总是返回 false
+     */
+    private boolean query(int lo, int hi, long lower, long upper, List<E> result, Set<Integer> seen) {
+        if (lo >= hi) {
+            return false;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] <= lower) {
+            return false;
+        }
+        if (query(lo, mid, lower, upper, result, seen)) {
+            return true;
+        }
+        if (starts[mid] >= upper) {
+            return false;
+        }
+        if (ends[mid] > lower) {
+            if (result == null) {
+                return true;
+            }
+            if (seen == null || seen.add(ids[mid])) {
+                result.add(items[mid]);
+            }
+        }
+        return query(mid + 1, hi, lower, upper, result, seen);
+    }
+
+    private long buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * @return 小于 key 的端点数
+     */
+    private int lowerBound(K key) {
+        int lo = 0;
+        int hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (points[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return 小于等于 key 的端点数
+     */
+    private int upperBound(K key) {
+        int lo = 0;
+        int hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (points[mid].compareTo(key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean hasDuplicateId(int[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? (long) a << 32 | b : (long) b << 32 | a;
+    }
+
+}
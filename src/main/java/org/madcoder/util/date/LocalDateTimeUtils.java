@@ -1,7 +1,5 @@
 package org.madcoder.util.date;
 
-import cn.hutool.core.date.LocalDateTimeUtil;
-
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -21,15 +19,15 @@ public class LocalDateTimeUtils {
     public static LocalDateTime EMPTY = buildTime(1970, 1, 1);
 
     public static LocalDateTime addTime(Duration duration) {
-        return LocalDateTime.now().plus(duration);
+        return DateUtils.getClock().now().plus(duration);
     }
 
     public static boolean beforeNow(LocalDateTime date) {
-        return date.isBefore(LocalDateTime.now());
+        return date.isBefore(DateUtils.getClock().now());
     }
 
     public static boolean afterNow(LocalDateTime date) {
-        return date.isAfter(LocalDateTime.now());
+        return date.isAfter(DateUtils.getClock().now());
     }
 
     /**
@@ -62,7 +60,11 @@ public class LocalDateTimeUtils {
         if (startTime == null || endTime == null) {
             return false;
         }
-        return LocalDateTimeUtil.isIn(LocalDateTime.now(), startTime, endTime);
+        // 与 LocalDateTimeUtil.isIn 一致：按毫秒时间戳比较，包含两端，开始结束时间顺序无关
+        long now = DateUtils.getClock().millis();
+        long start = DateUtils.toEpochMilli(startTime);
+        long end = DateUtils.toEpochMilli(endTime);
+        return Math.min(start, end) <= now && now <= Math.max(start, end);
     }
 
 
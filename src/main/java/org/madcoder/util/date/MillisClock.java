@@ -0,0 +1,227 @@
+package org.madcoder.util.date;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 毫秒时钟，{@link DateUtils} 与 {@link LocalDateTimeUtils} 中所有“当前时间”都从这里获取，通过 {@link DateUtils#setClock(MillisClock)} 替换
+ * <p>
+ * 提供三种实现：
+ * 1. {@link #system()}：默认实现，每次读取系统时间，与直接调用 {@link System#currentTimeMillis()} 一致
+ * 2. {@link #cached(Duration)}：后台线程定时刷新，读取当前时间、当前 LocalDateTime、今天的开始时间都只是一次 volatile 读，
+ * 精度为刷新间隔，适用于 token 过期判断等大量、对精度不敏感的时间判断
+ * 3. {@link #manual(long)}：手动设置的时间，适用于测试
+ *
+ * @author madcoder
+ */
+public abstract class MillisClock {
+
+    private static final MillisClock SYSTEM = new MillisClock() {
+
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public LocalDateTime now() {
+            // 保留系统时钟的完整精度，与 LocalDateTime.now() 一致
+            return DefaultZone.get().now();
+        }
+
+    };
+
+    /**
+     * @return 当前的毫秒时间戳
+     */
+    public abstract long millis();
+
+    /**
+     * @return 默认时区的当前时间
+     */
+    public LocalDateTime now() {
+        return DefaultZone.get().ofEpochMilli(millis());
+    }
+
+    /**
+     * @return 默认时区的今天，自 1970-01-01 起的天数
+     */
+    public long today() {
+        return DefaultZone.get().epochDay(millis());
+    }
+
+    /**
+     * @return 默认时区今天 00:00:00 的毫秒时间戳
+     */
+    public long startOfToday() {
+        DefaultZone zone = DefaultZone.get();
+        return zone.toEpochMilli(LocalDate.ofEpochDay(zone.epochDay(millis())).atStartOfDay());
+    }
+
+    /**
+     * @return 系统时钟
+     */
+    public static MillisClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * 创建后台刷新的时钟，使用守护线程刷新，不再使用时调用 {@link Cached#close()} 停止
+     *
+     * @param tick 刷新间隔，即时钟的精度
+     * @return 时钟
+     */
+    public static Cached cached(Duration tick) {
+        return new Cached(tick);
+    }
+
+    /**
+     * 创建手动设置的时钟
+     *
+     * @param epochMilli 初始的毫秒时间戳
+     * @return 时钟
+     */
+    public static Manual manual(long epochMilli) {
+        return new Manual(epochMilli);
+    }
+
+    /**
+     * 后台刷新的时钟
+     * <p>
+     * 每次刷新生成一个不可变的快照，读取方只需一次 volatile 读即可获得时间戳、LocalDateTime 与今天的开始时间；
+     * 日期与今天的开始时间只在跨天（或默认时区变化）时重新计算；刷新线程每秒最多检查一次默认时区的变化。
+     */
+    public static final class Cached extends MillisClock implements AutoCloseable {
+
+        private static final long ZONE_CHECK_MILLIS = 1000;
+
+        private final long tickMillis;
+        private final Thread thread;
+        private volatile Snapshot snapshot;
+        private volatile boolean closed;
+
+        private Cached(Duration tick) {
+            this.tickMillis = tick.toMillis();
+            if (tickMillis <= 0) {
+                throw new IllegalArgumentException("tick 必须大于 0 毫秒");
+            }
+            this.snapshot = new Snapshot(System.currentTimeMillis(), null);
+            this.thread = new Thread(this::run, "millis-clock-ticker");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public long millis() {
+            return snapshot.millis;
+        }
+
+        @Override
+        public LocalDateTime now() {
+            return snapshot.now;
+        }
+
+        @Override
+        public long today() {
+            return snapshot.today;
+        }
+
+        @Override
+        public long startOfToday() {
+            return snapshot.startOfToday;
+        }
+
+        /**
+         * 停止后台刷新，之后时间不再变化
+         */
+        @Override
+        public void close() {
+            closed = true;
+            thread.interrupt();
+        }
+
+        private void run() {
+            long nextZoneCheck = 0;
+            while (!closed) {
+                try {
+                    Thread.sleep(tickMillis);
+                } catch (InterruptedException e) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                long millis = System.currentTimeMillis();
+                // 每秒最多检查一次默认时区是否被 TimeZone.setDefault 修改，读取方不承担这部分开销
+                if (millis - nextZoneCheck >= 0) {
+                    DefaultZone.refreshIfChanged();
+                    nextZoneCheck = millis + ZONE_CHECK_MILLIS;
+                }
+                snapshot = new Snapshot(millis, snapshot);
+            }
+        }
+
+    }
+
+    /**
+     * 手动设置的时钟
+     */
+    public static final class Manual extends MillisClock {
+
+        /**
+         * 测试中可能多个线程同时 advance，使用原子自增，不丢失更新
+         */
+        private final AtomicLong millis;
+
+        private Manual(long millis) {
+            this.millis = new AtomicLong(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis.get();
+        }
+
+        public void set(long epochMilli) {
+            millis.set(epochMilli);
+        }
+
+        public void set(LocalDateTime time) {
+            millis.set(DefaultZone.get().toEpochMilli(time));
+        }
+
+        public void advance(Duration duration) {
+            millis.addAndGet(duration.toMillis());
+        }
+
+    }
+
+    /**
+     * {@link Cached} 某一次刷新的结果
+     */
+    private static final class Snapshot {
+
+        private final long millis;
+        private final LocalDateTime now;
+        private final DefaultZone zone;
+        private final long today;
+        private final long startOfToday;
+
+        private Snapshot(long millis, Snapshot previous) {
+            DefaultZone zone = DefaultZone.get();
+            this.millis = millis;
+            this.now = zone.ofEpochMilli(millis);
+            this.zone = zone;
+            this.today = now.toLocalDate().toEpochDay();
+            // 同一天内沿用上一次的计算结果
+            if (previous != null && previous.zone == zone && previous.today == today) {
+                this.startOfToday = previous.startOfToday;
+            } else {
+                this.startOfToday = zone.toEpochMilli(now.toLocalDate().atStartOfDay());
+            }
+        }
+
+    }
+
+}
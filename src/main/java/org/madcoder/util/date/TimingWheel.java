@@ -0,0 +1,393 @@
+package org.madcoder.util.date;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 分层哈希时间轮，用于大量元素（会话、锁、验证码等）的过期跟踪，替代定时遍历全部元素并调用 {@link DateUtils#isExpired(Date)}
+ * <p>
+ * 1. 时间按 tick 划分，共 levels 层，每层 wheelSize 个桶，第 L 层每个桶覆盖 tick * wheelSize^L 的时间；
+ * 元素放在能容纳其过期时间的最低一层，高层的桶在到期前逐层下放，最终在第 0 层的桶中过期
+ * 2. schedule 与 cancel 可以在任意线程调用，只是入队（或一次 CAS），O(1)；桶的修改全部由唯一的工作线程完成，无需加锁
+ * 3. 同一个 tick 内过期的元素合并为一批，在工作线程中回调
+ * <p>
+ * 过期回调不会早于过期时间，最多晚一个 tick（工作线程繁忙时会更晚）。回调抛出的异常会被记录，不影响后续的过期。
+ * <p>
+ * 当前时间从 {@link MillisClock} 读取，默认为创建时的 {@link DateUtils#getClock()}，测试中可以传入 {@link MillisClock#manual(long)}；
+ * 工作线程最多睡眠一个 tick 后重新读取时钟。
+ *
+ * @param <T> 元素类型
+ * @author madcoder
+ */
+@Slf4j
+public class TimingWheel<T> implements AutoCloseable {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickMillis;
+    private final MillisClock clock;
+    private final int bits;
+    private final int mask;
+    private final Bucket<T>[][] wheels;
+    private final Consumer<List<T>> onExpired;
+
+    private final long startMillis;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * 最后一次处理完成的 tick，只在工作线程中访问
+     */
+    private long currentTick;
+
+    /**
+     * 创建时间轮，每层 512 个桶，共 4 层
+     *
+     * @param tick      时间精度
+     * @param onExpired 过期回调，参数为同一个 tick 内过期的元素
+     */
+    public TimingWheel(Duration tick, Consumer<List<T>> onExpired) {
+        this(tick, 512, 4, onExpired);
+    }
+
+    /**
+     * 创建时间轮，使用 {@link DateUtils#getClock()}
+     *
+     * @param tick      时间精度
+     * @param wheelSize 每层的桶数，会向上取整为 2 的幂
+     * @param levels    层数，最大可直接容纳的时长为 tick * wheelSize^levels，更长的时长会在最高层循环等待
+     * @param onExpired 过期回调，参数为同一个 tick 内过期的元素
+     */
+    public TimingWheel(Duration tick, int wheelSize, int levels, Consumer<List<T>> onExpired) {
+        this(tick, wheelSize, levels, DateUtils.getClock(), onExpired);
+    }
+
+    /**
+     * 创建时间轮
+     *
+     * @param tick      时间精度
+     * @param wheelSize 每层的桶数，会向上取整为 2 的幂
+     * @param levels    层数，最大可直接容纳的时长为 tick * wheelSize^levels，更长的时长会在最高层循环等待
+     * @param clock     时钟
+     * @param onExpired 过期回调，参数为同一个 tick 内过期的元素
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(Duration tick, int wheelSize, int levels, MillisClock clock, Consumer<List<T>> onExpired) {
+        this.tickMillis = tick.toMillis();
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick 必须大于 0 毫秒");
+        }
+        if (wheelSize < 2 || wheelSize > 1 << 16) {
+            throw new IllegalArgumentException("wheelSize 必须在 2 ~ 65536 之间");
+        }
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        if (levels <= 0 || bits * levels >= 63) {
+            throw new IllegalArgumentException("levels 不合法：" + levels);
+        }
+        this.mask = (1 << bits) - 1;
+        this.wheels = (Bucket<T>[][]) new Bucket<?>[levels][1 << bits];
+        for (Bucket<T>[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket<>();
+            }
+        }
+        this.onExpired = onExpired;
+        this.clock = clock;
+        this.startMillis = clock.millis();
+        this.worker = new Thread(this::run, "timing-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 在 delay 之后过期
+     *
+     * @param item  元素
+     * @param delay 过期时长
+     * @return 可用于取消的句柄
+     */
+    public Timeout<T> schedule(T item, Duration delay) {
+        return schedule(item, clock.millis() + delay.toMillis());
+    }
+
+    /**
+     * 在指定时间过期
+     *
+     * @param item       元素
+     * @param expireTime 过期时间
+     * @return 可用于取消的句柄
+     */
+    public Timeout<T> schedule(T item, Date expireTime) {
+        return schedule(item, expireTime.getTime());
+    }
+
+    /**
+     * 在指定时间（默认时区）过期
+     *
+     * @param item       元素
+     * @param expireTime 过期时间
+     * @return 可用于取消的句柄
+     */
+    public Timeout<T> schedule(T item, LocalDateTime expireTime) {
+        return schedule(item, DateUtils.toEpochMilli(expireTime));
+    }
+
+    /**
+     * 在指定的毫秒时间戳过期
+     *
+     * @param item       元素
+     * @param expireTime 过期时间戳
+     * @return 可用于取消的句柄
+     */
+    public Timeout<T> schedule(T item, long expireTime) {
+        if (closed) {
+            throw new IllegalStateException("时间轮已关闭");
+        }
+        Timeout<T> timeout = new Timeout<>(this, item, expireTime);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return 尚未过期、未取消的元素数量
+     */
+    public long size() {
+        return pending.get();
+    }
+
+    /**
+     * 停止工作线程，尚未过期的元素不再回调
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (!closed) {
+            long targetTick = (clock.millis() - startMillis) / tickMillis;
+            if (targetTick <= currentTick) {
+                // 睡到下一个 tick 开始，最多一个 tick，时钟不是系统时钟时也能及时发现时间的变化
+                long wakeup = startMillis + (currentTick + 1) * tickMillis;
+                LockSupport.parkNanos(Math.min(Math.max(1, wakeup - clock.millis()), tickMillis) * 1_000_000L);
+                continue;
+            }
+            try {
+                // 落后时逐个 tick 追赶
+                while (currentTick < targetTick && !closed) {
+                    transferScheduled();
+                    transferCancelled();
+                    advance(currentTick + 1);
+                }
+            } catch (Throwable e) {
+                log.error("[run][时间轮处理 tick({}) 异常]", currentTick, e);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (Timeout<T> timeout; (timeout = scheduled.poll()) != null; ) {
+            if (timeout.state.get() == PENDING) {
+                place(timeout, currentTick + 1);
+            }
+        }
+    }
+
+    private void transferCancelled() {
+        for (Timeout<T> timeout; (timeout = cancelled.poll()) != null; ) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void advance(long tick) {
+        // 高层的桶在其覆盖的时间段开始时下放，从高到低处理，保证下放到低层的元素在本 tick 中继续处理
+        for (int level = wheels.length - 1; level >= 1; level--) {
+            int shift = bits * level;
+            if ((tick & ((1L << shift) - 1)) == 0) {
+                Bucket<T> bucket = wheels[level][(int) (tick >>> shift) & mask];
+                for (Timeout<T> timeout = bucket.clear(); timeout != null; ) {
+                    Timeout<T> next = timeout.next;
+                    timeout.next = null;
+                    timeout.prev = null;
+                    timeout.bucket = null;
+                    if (timeout.state.get() == PENDING) {
+                        place(timeout, tick);
+                    }
+                    timeout = next;
+                }
+            }
+        }
+        List<T> expired = null;
+        Bucket<T> bucket = wheels[0][(int) tick & mask];
+        for (Timeout<T> timeout = bucket.clear(); timeout != null; ) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+            if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                pending.decrementAndGet();
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(timeout.item);
+            }
+            timeout = next;
+        }
+        currentTick = tick;
+        if (expired != null) {
+            try {
+                onExpired.accept(expired);
+            } catch (RuntimeException e) {
+                log.error("[advance][过期回调异常，数量({})]", expired.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 放入能容纳过期时间的最低一层：第 L 层满足 (deadline &gt;&gt; bits*L) - (tick &gt;&gt; bits*L) &lt; wheelSize
+     * 第 L 层（L &gt; 0）的桶在 tick 之后才会下放，第 0 层的桶在 deadline 对应的 tick 处理
+     *
+     * @param tick 下一个待处理（或正在处理）的 tick
+     */
+    private void place(Timeout<T> timeout, long tick) {
+        // 向上取整，保证不会提前过期；已经过期的在 tick 中立即过期
+        long deadline = Math.max(tick, Math.floorDiv(timeout.expireTime - startMillis + tickMillis - 1, tickMillis));
+        int level = 0;
+        while (level < wheels.length - 1 && (deadline >>> (bits * level)) - (tick >>> (bits * level)) > mask) {
+            level++;
+        }
+        long slot = deadline >>> (bits * level);
+        // 超出最高层的范围时，放在最高层的上一个桶中，下放时重新计算
+        if (slot - (tick >>> (bits * level)) > mask) {
+            slot = (tick >>> (bits * level)) + mask;
+        }
+        wheels[level][(int) slot & mask].add(timeout);
+    }
+
+    /**
+     * 时间轮中的元素
+     */
+    public static final class Timeout<T> {
+
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long expireTime;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /**
+         * 以下字段只在工作线程中访问
+         */
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Bucket<T> bucket;
+
+        private Timeout(TimingWheel<T> wheel, T item, long expireTime) {
+            this.wheel = wheel;
+            this.item = item;
+            this.expireTime = expireTime;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * @return 过期的毫秒时间戳
+         */
+        public long getExpireTime() {
+            return expireTime;
+        }
+
+        /**
+         * 取消过期，O(1)，可以在任意线程调用
+         *
+         * @return 是否取消成功，已经过期或已经取消时返回 false
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            // 从桶中移除交给工作线程
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+    }
+
+    /**
+     * 桶，双向链表，只在工作线程中访问
+     */
+    private static final class Bucket<T> {
+
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * @return 清空前的链表头
+         */
+        private Timeout<T> clear() {
+            Timeout<T> first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+
+    }
+
+}
@@ -2,13 +2,32 @@ package org.madcoder.util.number;
 
 import cn.hutool.core.util.StrUtil;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 数字的工具类，补全 {@link cn.hutool.core.util.NumberUtil} 的功能
+ * <p>
+ * 带 defaultValue 参数的 parseXxx 方法不抛异常：输入为空或格式不合法时返回 defaultValue，
+ * 适用于解析客户端传入的参数，避免非法输入触发异常堆栈的采集。这些方法不会去除首尾空白。
  *
  * @author madcoder
  */
 public class NumberUtils {
 
+    /**
+     * 10 的 0 ~ 22 次方，double 可以精确表示
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * double 可以精确表示的最大整数位数
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
 
     /**
      * 将字符串转换为 Long 类型。
@@ -22,4 +41,385 @@ public class NumberUtils {
         return StrUtil.isNotEmpty(str) ? Long.valueOf(str) : null;
     }
 
+    /**
+     * 将字符串转换为 long，不抛异常
+     *
+     * @param str          待转换的字符串
+     * @param defaultValue 为空或格式不合法时的返回值
+     * @return 转换结果
+     */
+    public static long parseLong(CharSequence str, long defaultValue) {
+        return str == null ? defaultValue : parseLong(str, 0, str.length(), defaultValue);
+    }
+
+    /**
+     * 将字符串 [from, to) 区间转换为 long，不抛异常，不创建子串
+     *
+     * @param str          待转换的字符串
+     * @param from         开始下标（包含）
+     * @param to           结束下标（不包含）
+     * @param defaultValue 为空或格式不合法时的返回值
+     * @return 转换结果
+     */
+    public static long parseLong(CharSequence str, int from, int to, long defaultValue) {
+        return parseLong(str, from, to, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * 将 ASCII 兼容编码（如 UTF-8）的字节 [from, to) 区间转换为 long，不抛异常
+     *
+     * @param bytes        字节数组
+     * @param from         开始下标（包含）
+     * @param to           结束下标（不包含）
+     * @param defaultValue 为空或格式不合法时的返回值
+     * @return 转换结果
+     */
+    public static long parseLong(byte[] bytes, int from, int to, long defaultValue) {
+        return parseLong(bytes, from, to, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * 将字符串转换为 int，不抛异常
+     *
+     * @param str          待转换的字符串
+     * @param defaultValue 为空或格式不合法（包括超出 int 范围）时的返回值
+     * @return 转换结果
+     */
+    public static int parseInt(CharSequence str, int defaultValue) {
+        return str == null ? defaultValue : parseInt(str, 0, str.length(), defaultValue);
+    }
+
+    /**
+     * 将字符串 [from, to) 区间转换为 int，不抛异常，不创建子串
+     *
+     * @see #parseInt(CharSequence, int)
+     */
+    public static int parseInt(CharSequence str, int from, int to, int defaultValue) {
+        return (int) parseLong(str, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * 将 ASCII 兼容编码（如 UTF-8）的字节 [from, to) 区间转换为 int，不抛异常
+     *
+     * @see #parseInt(CharSequence, int)
+     */
+    public static int parseInt(byte[] bytes, int from, int to, int defaultValue) {
+        return (int) parseLong(bytes, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * 将字符串转换为 double，不抛异常
+     * <p>
+     * 支持十进制小数与科学计数法，例如 -1.5、.5、1e-3；不支持 NaN、Infinity、十六进制以及 d / f 后缀。
+     * 有效数字不超过 15 位、指数不超过 22 时直接精确计算，其余情况交给 {@link Double#parseDouble(String)}。
+     *
+     * @param str          待转换的字符串
+     * @param defaultValue 为空或格式不合法时的返回值
+     * @return 转换结果
+     */
+    public static double parseDouble(CharSequence str, double defaultValue) {
+        return str == null ? defaultValue : parseDouble(str, 0, str.length(), defaultValue);
+    }
+
+    /**
+     * 将字符串 [from, to) 区间转换为 double，不抛异常
+     *
+     * @see #parseDouble(CharSequence, double)
+     */
+    public static double parseDouble(CharSequence str, int from, int to, double defaultValue) {
+        if (from >= to) {
+            return defaultValue;
+        }
+        int i = from;
+        boolean negative = false;
+        char c = str.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            c = str.charAt(i);
+            if (c == '.') {
+                if (seenDot) {
+                    return defaultValue;
+                }
+                seenDot = true;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            digits++;
+            if (mantissa == 0 && digit == 0) {
+                // 前导 0 不计入有效数字
+                if (seenDot) {
+                    exponent--;
+                }
+                continue;
+            }
+            if (++significantDigits <= 18) {
+                mantissa = mantissa * 10 + digit;
+                if (seenDot) {
+                    exponent--;
+                }
+            } else if (!seenDot) {
+                // 超出 long 精度的整数部分，只记录数量级，交给慢速路径
+                exponent++;
+            }
+        }
+        if (digits == 0) {
+            return defaultValue;
+        }
+        if (i < to) {
+            if (c != 'e' && c != 'E') {
+                return defaultValue;
+            }
+            int exponentValue = parseExponent(str, i + 1, to);
+            if (exponentValue == Integer.MIN_VALUE) {
+                return defaultValue;
+            }
+            exponent += exponentValue;
+        }
+        // 快速路径：尾数与 10 的幂都可以被 double 精确表示，一次乘除的结果即为正确舍入的结果
+        if (significantDigits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        // 格式已校验，不会抛出异常
+        return Double.parseDouble(str.subSequence(from, to).toString());
+    }
+
+    /**
+     * 将 ASCII 兼容编码（如 UTF-8）的字节 [from, to) 区间转换为 double，不抛异常
+     *
+     * @see #parseDouble(CharSequence, double)
+     */
+    public static double parseDouble(byte[] bytes, int from, int to, double defaultValue) {
+        return parseDouble(new AsciiSequence(bytes), from, to, defaultValue);
+    }
+
+    /**
+     * 将字符串转换为 BigDecimal，不抛异常
+     * <p>
+     * 支持十进制小数与科学计数法，格式与 {@link BigDecimal#BigDecimal(String)} 一致
+     *
+     * @param str          待转换的字符串
+     * @param defaultValue 为空或格式不合法时的返回值
+     * @return 转换结果
+     */
+    public static BigDecimal parseBigDecimal(CharSequence str, BigDecimal defaultValue) {
+        return str == null ? defaultValue : parseBigDecimal(str, 0, str.length(), defaultValue);
+    }
+
+    /**
+     * 将字符串 [from, to) 区间转换为 BigDecimal，不抛异常
+     *
+     * @see #parseBigDecimal(CharSequence, BigDecimal)
+     */
+    public static BigDecimal parseBigDecimal(CharSequence str, int from, int to, BigDecimal defaultValue) {
+        if (!isDecimal(str, from, to)) {
+            return defaultValue;
+        }
+        // 不带小数点、指数的短整数，直接走 long 解析
+        if (to - from <= 18) {
+            long value = parseLong(str, from, to, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE);
+            if (value != Long.MIN_VALUE) {
+                return BigDecimal.valueOf(value);
+            }
+        }
+        char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = str.charAt(i);
+        }
+        try {
+            return new BigDecimal(chars);
+        } catch (NumberFormatException e) {
+            // 格式已校验，只有 scale 超出 int 范围的极端输入会走到这里
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 将 ASCII 兼容编码（如 UTF-8）的字节 [from, to) 区间转换为 BigDecimal，不抛异常
+     *
+     * @see #parseBigDecimal(CharSequence, BigDecimal)
+     */
+    public static BigDecimal parseBigDecimal(byte[] bytes, int from, int to, BigDecimal defaultValue) {
+        return parseBigDecimal(new AsciiSequence(bytes), from, to, defaultValue);
+    }
+
+    private static long parseLong(CharSequence str, int from, int to, long min, long max, long defaultValue) {
+        if (from >= to) {
+            return defaultValue;
+        }
+        int i = from;
+        char first = str.charAt(i);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            if (++i == to) {
+                return defaultValue;
+            }
+        }
+        // 与 Long.parseLong 相同，按负数累加，避免 MIN_VALUE 溢出
+        long limit = negative ? min : -max;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMin) {
+                return defaultValue;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return defaultValue;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static long parseLong(byte[] bytes, int from, int to, long min, long max, long defaultValue) {
+        if (from >= to) {
+            return defaultValue;
+        }
+        int i = from;
+        byte first = bytes[i];
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            if (++i == to) {
+                return defaultValue;
+            }
+        }
+        long limit = negative ? min : -max;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMin) {
+                return defaultValue;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return defaultValue;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 解析指数部分
+     *
+     * @return 指数，格式不合法时返回 Integer.MIN_VALUE；绝对值过大时截断为 ±100000，足以让结果溢出为 0 或无穷大
+     */
+    private static int parseExponent(CharSequence str, int from, int to) {
+        if (from >= to) {
+            return Integer.MIN_VALUE;
+        }
+        int i = from;
+        char c = str.charAt(i);
+        boolean negative = c == '-';
+        if ((negative || c == '+') && ++i == to) {
+            return Integer.MIN_VALUE;
+        }
+        int result = 0;
+        for (; i < to; i++) {
+            int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.MIN_VALUE;
+            }
+            result = Math.min(result * 10 + digit, 100000);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * 校验十进制小数格式：[+-] 数字 [. 数字] [e [+-] 数字]，整数与小数部分至少一个非空，指数不超过 9 位
+     */
+    private static boolean isDecimal(CharSequence str, int from, int to) {
+        if (str == null || from >= to) {
+            return false;
+        }
+        int i = from;
+        char c = str.charAt(i);
+        if (c == '-' || c == '+') {
+            i++;
+        }
+        int digits = 0;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            c = str.charAt(i);
+            if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == to) {
+            return true;
+        }
+        if (c != 'e' && c != 'E') {
+            return false;
+        }
+        i++;
+        if (i < to && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+            i++;
+        }
+        int exponentDigits = to - i;
+        if (exponentDigits <= 0 || exponentDigits > 9) {
+            return false;
+        }
+        for (; i < to; i++) {
+            c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将 ASCII 字节数组视为字符序列，不复制
+     */
+    private static final class AsciiSequence implements CharSequence {
+
+        private final byte[] bytes;
+
+        private AsciiSequence(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, bytes.length).toString();
+        }
+
+    }
+
 }
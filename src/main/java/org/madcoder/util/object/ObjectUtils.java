@@ -2,9 +2,10 @@ package org.madcoder.util.object;
 
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.ReflectUtil;
+import org.madcoder.util.collection.MembershipSet;
 
 import java.lang.reflect.Field;
-import java.util.Arrays;
+import java.util.Objects;
 import java.util.function.Consumer;
 
 /**
@@ -88,7 +89,23 @@ public class ObjectUtils {
      */
     @SafeVarargs
     public static <T> boolean equalsAny(T obj, T... array) {
-        return Arrays.asList(array).contains(obj);
+        for (T item : array) {
+            if (Objects.equals(obj, item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查给定对象是否等于预编译集合中的任何一个对象，适用于在热点代码中反复判断同一组常量。
+     * @param obj 要检查的对象
+     * @param set 通过 {@link MembershipSet#of(Object[])} 预先构建的常量集合
+     * @param <T> 对象的类型
+     * @return 如果给定对象等于集合中的任何一个对象，则返回true；否则返回false
+     */
+    public static <T> boolean equalsAny(T obj, MembershipSet<? super T> set) {
+        return set.contains(obj);
     }
 
 }
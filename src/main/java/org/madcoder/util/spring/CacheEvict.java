@@ -0,0 +1,47 @@
+package org.madcoder.util.spring;
+
+import java.lang.annotation.*;
+
+/**
+ * 移除 {@link Cached} 缓存的值，由 {@link CachedAspect} 处理
+ *
+ * @author madcoder
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheEvict {
+
+    /**
+     * @return 缓存名
+     */
+    String value();
+
+    /**
+     * 规则与 {@link Cached#key()} 相同
+     *
+     * @return 缓存 key 的 SpEL 表达式
+     */
+    String key() default "";
+
+    /**
+     * @return 是否移除缓存中的全部值
+     */
+    boolean allEntries() default false;
+
+    /**
+     * @return 是否在调用方法之前移除；默认在方法正常返回之后移除
+     */
+    boolean beforeInvocation() default false;
+
+    /**
+     * @return 判断是否移除的 SpEL 表达式，方法返回之后移除时可以通过 #result 引用返回值
+     */
+    String condition() default "";
+
+    /**
+     * @return 是否为批量模式：方法的第一个 Collection 类型参数为 id 集合，逐个移除，key 表达式中通过 #id 引用单个 id
+     */
+    boolean bulk() default false;
+
+}
@@ -0,0 +1,77 @@
+package org.madcoder.util.spring;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存方法的返回值，由 {@link CachedAspect} 处理
+ * <p>
+ * 同名的缓存共用一个 {@link com.google.common.cache.Cache}，过期、刷新、数量等配置以第一个创建缓存的注解为准。
+ * 返回 null 也会被缓存，不需要时使用 unless = "#result == null"。
+ * <p>
+ * 批量模式（bulk = true）：方法的第一个 Collection 类型参数为 id 集合，返回值为 Map&lt;id, 结果&gt;，
+ * 命中的 id 直接从缓存返回，只用未命中的 id 调用方法；key 表达式中通过 #id 引用单个 id。例如：
+ * <pre>
+ * &#64;Cached(value = "user", key = "'user:' + #id", bulk = true, expireAfterWrite = 300)
+ * public Map&lt;Long, User&gt; getUsers(Collection&lt;Long&gt; ids)
+ * </pre>
+ *
+ * @author madcoder
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cached {
+
+    /**
+     * @return 缓存名
+     */
+    String value();
+
+    /**
+     * 为空时：没有参数使用方法本身，一个非 null、非数组的参数使用参数本身，其他情况使用按内容比较的参数列表；批量模式下使用 id 本身
+     *
+     * @return 缓存 key 的 SpEL 表达式
+     */
+    String key() default "";
+
+    /**
+     * @return 写入多久之后过期，0 表示不过期
+     */
+    long expireAfterWrite() default 0;
+
+    /**
+     * 刷新时重新调用方法，调用期间其他线程返回旧值
+     *
+     * @return 写入多久之后异步刷新，0 表示不刷新
+     */
+    long refreshAfterWrite() default 0;
+
+    /**
+     * @return expireAfterWrite、refreshAfterWrite 的时间单位
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * @return 最大数量，小于等于 0 表示不限制
+     */
+    long maximumSize() default 10000;
+
+    /**
+     * @return 调用方法之前判断是否使用缓存的 SpEL 表达式，为空时总是使用
+     */
+    String condition() default "";
+
+    /**
+     * 刷新得到的结果同样判断，满足时不替换为新值，之后的访问重新调用方法
+     *
+     * @return 调用方法之后判断是否不缓存的 SpEL 表达式，通过 #result 引用返回值（批量模式下为单个 id 的结果）
+     */
+    String unless() default "";
+
+    /**
+     * @return 是否为批量模式
+     */
+    boolean bulk() default false;
+
+}
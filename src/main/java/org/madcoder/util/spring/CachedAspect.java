@@ -0,0 +1,416 @@
+package org.madcoder.util.spring;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.madcoder.util.cache.CacheUtils;
+import org.springframework.expression.EvaluationContext;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link Cached}、{@link CacheEvict} 的切面，需要注册为 Spring Bean
+ * <p>
+ * 缓存按名称通过 {@link CacheUtils} 创建，key、condition、unless 通过 {@link SpringExpressionUtils} 执行。
+ * 同一个 key 并发未命中时各自调用方法，不互相等待。刷新得到的结果同样执行 unless，满足时不写入新值，
+ * 而是写入 {@link #DISCARDED} 标记，之后的访问按未命中处理并移除标记。
+ *
+ * @author madcoder
+ */
+@Aspect
+public class CachedAspect {
+
+    /**
+     * 刷新结果满足 unless 时写入的标记；Guava 的刷新无法在完成时移除 key，只能替换为新值
+     */
+    private static final CacheValue DISCARDED = new CacheValue(null, null, null);
+
+    /**
+     * 刷新时使用缓存值中保存的调用重新执行；值只通过 Cache#get/put 写入，不会调用 load
+     */
+    private static final CacheLoader<Object, CacheValue> RELOADER = new CacheLoader<Object, CacheValue>() {
+
+        @Override
+        public CacheValue load(Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ListenableFuture<CacheValue> reload(Object key, CacheValue oldValue) throws Exception {
+            if (oldValue == DISCARDED) {
+                return Futures.immediateFuture(DISCARDED);
+            }
+            Object value = oldValue.reloader.call();
+            if (oldValue.unless != null && oldValue.unless.test(value)) {
+                return Futures.immediateFuture(DISCARDED);
+            }
+            return Futures.immediateFuture(new CacheValue(value, oldValue.reloader, oldValue.unless));
+        }
+
+    };
+
+    private final ConcurrentMap<String, Cache<Object, CacheValue>> caches = new ConcurrentHashMap<>();
+    /**
+     * 批量模式的方法 → id 集合参数
+     */
+    private final ConcurrentMap<Method, BulkParameter> bulkParameters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(cached)")
+    public Object around(ProceedingJoinPoint joinPoint, Cached cached) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        if (StrUtil.isNotEmpty(cached.condition())
+                && !isTrue(cached.condition(), SpringExpressionUtils.createContext(method, args))) {
+            return joinPoint.proceed();
+        }
+        Cache<Object, CacheValue> cache = getCache(cached);
+        if (cached.bulk()) {
+            return aroundBulk(joinPoint, cached, cache, method, args);
+        }
+        EvaluationContext context = SpringExpressionUtils.createContext(method, args);
+        Object key = generateKey(cached.key(), context, method, args);
+        // key 为 null 时不使用缓存
+        if (key == null) {
+            return joinPoint.proceed();
+        }
+        CacheValue value = getIfPresent(cache, key);
+        if (value != null) {
+            return value.value;
+        }
+        Object result = joinPoint.proceed();
+        if (!isUnless(cached.unless(), context, result)) {
+            // 只有刷新的缓存才保存调用：reloader 引用了 joinPoint（代理、目标对象、拦截器链与参数）
+            cache.put(key, cached.refreshAfterWrite() > 0
+                    ? new CacheValue(result, () -> proceed(joinPoint, args),
+                    unless(cached.unless(), () -> SpringExpressionUtils.createContext(method, args)))
+                    : new CacheValue(result, null, null));
+        }
+        return result;
+    }
+
+    @Around("@annotation(cacheEvict)")
+    public Object around(ProceedingJoinPoint joinPoint, CacheEvict cacheEvict) throws Throwable {
+        if (cacheEvict.beforeInvocation()) {
+            evict(joinPoint, cacheEvict, null);
+            return joinPoint.proceed();
+        }
+        Object result = joinPoint.proceed();
+        evict(joinPoint, cacheEvict, result);
+        return result;
+    }
+
+    /**
+     * 移除缓存的值
+     *
+     * @param cacheName 缓存名
+     * @param key       key
+     */
+    public void evict(String cacheName, Object key) {
+        Cache<Object, CacheValue> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 移除缓存中的全部值
+     *
+     * @param cacheName 缓存名
+     */
+    public void clear(String cacheName) {
+        Cache<Object, CacheValue> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private Object aroundBulk(ProceedingJoinPoint joinPoint, Cached cached, Cache<Object, CacheValue> cache,
+                              Method method, Object[] args) throws Throwable {
+        BulkParameter parameter = getBulkParameter(method);
+        if (!method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+            throw new IllegalStateException("批量缓存的方法(" + method + ")返回值必须为 Map");
+        }
+        Collection<?> ids = (Collection<?>) args[parameter.index];
+        if (ids == null || ids.isEmpty()) {
+            return joinPoint.proceed();
+        }
+        // 第一步，逐个 id 查询缓存
+        Map<Object, Object> keys = new HashMap<>(ids.size() * 2);
+        Map<Object, CacheValue> hits = new HashMap<>(ids.size() * 2);
+        Collection<Object> misses = parameter.factory.apply(ids.size());
+        for (Object id : ids) {
+            Object key = generateBulkKey(cached.key(), method, args, id);
+            CacheValue value = key != null ? getIfPresent(cache, key) : null;
+            if (value != null) {
+                hits.put(id, value);
+            } else {
+                keys.put(id, key);
+                misses.add(id);
+            }
+        }
+        // 第二步，只用未命中的 id 调用方法，并写入缓存
+        Map<?, ?> loaded = Collections.emptyMap();
+        if (!misses.isEmpty()) {
+            Object[] missArgs = args.clone();
+            missArgs[parameter.index] = misses;
+            Map<?, ?> proceeded = (Map<?, ?>) joinPoint.proceed(missArgs);
+            if (proceeded != null) {
+                loaded = proceeded;
+            }
+            for (Object id : misses) {
+                Object key = keys.get(id);
+                Object value = loaded.get(id);
+                if (key == null || isUnless(cached.unless(), bulkContext(method, args, id), value)) {
+                    continue;
+                }
+                if (cached.refreshAfterWrite() <= 0) {
+                    cache.put(key, new CacheValue(value, null, null));
+                    continue;
+                }
+                // 刷新只引用单个 id 的参数，不引用调用方的整个 id 集合
+                Object[] reloadArgs = args.clone();
+                reloadArgs[parameter.index] = parameter.singleton(id);
+                cache.put(key, new CacheValue(value, () -> {
+                    Map<?, ?> reloaded = (Map<?, ?>) proceed(joinPoint, reloadArgs);
+                    return reloaded != null ? reloaded.get(id) : null;
+                }, unless(cached.unless(), () -> bulkContext(method, reloadArgs, id))));
+            }
+        }
+        // 第三步，按 id 集合的顺序合并，不存在的 id 不返回
+        Map<Object, Object> result = new LinkedHashMap<>(ids.size() * 2);
+        for (Object id : ids) {
+            CacheValue hit = hits.get(id);
+            Object value = hit != null ? hit.value : loaded.get(id);
+            if (value != null) {
+                result.put(id, value);
+            }
+        }
+        return result;
+    }
+
+    private void evict(ProceedingJoinPoint joinPoint, CacheEvict cacheEvict, Object result) {
+        Cache<Object, CacheValue> cache = caches.get(cacheEvict.value());
+        if (cache == null) {
+            return;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        EvaluationContext context = SpringExpressionUtils.createContext(method, args);
+        context.setVariable("result", result);
+        if (StrUtil.isNotEmpty(cacheEvict.condition()) && !isTrue(cacheEvict.condition(), context)) {
+            return;
+        }
+        if (cacheEvict.allEntries()) {
+            cache.invalidateAll();
+            return;
+        }
+        if (!cacheEvict.bulk()) {
+            Object key = generateKey(cacheEvict.key(), context, method, args);
+            if (key != null) {
+                cache.invalidate(key);
+            }
+            return;
+        }
+        Collection<?> ids = (Collection<?>) args[getBulkParameter(method).index];
+        if (ids == null) {
+            return;
+        }
+        for (Object id : ids) {
+            Object key = generateBulkKey(cacheEvict.key(), method, args, id);
+            if (key != null) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private static Cache<Object, CacheValue> buildCache(Cached cached) {
+        Duration expireAfterWrite = cached.expireAfterWrite() > 0
+                ? Duration.ofNanos(cached.timeUnit().toNanos(cached.expireAfterWrite())) : null;
+        if (cached.refreshAfterWrite() > 0) {
+            Duration refreshAfterWrite = Duration.ofNanos(cached.timeUnit().toNanos(cached.refreshAfterWrite()));
+            return CacheUtils.buildAsyncReloadingCache(refreshAfterWrite, expireAfterWrite, cached.maximumSize(), RELOADER);
+        }
+        return CacheUtils.buildCache(expireAfterWrite, cached.maximumSize());
+    }
+
+    /**
+     * 获得缓存的值，{@link #DISCARDED} 按未命中处理并移除
+     */
+    private static CacheValue getIfPresent(Cache<Object, CacheValue> cache, Object key) {
+        CacheValue value = cache.getIfPresent(key);
+        if (value == DISCARDED) {
+            cache.asMap().remove(key, DISCARDED);
+            return null;
+        }
+        return value;
+    }
+
+    private static Object generateKey(String key, EvaluationContext context, Method method, Object[] args) {
+        if (StrUtil.isNotEmpty(key)) {
+            return SpringExpressionUtils.getValue(key, context);
+        }
+        if (args.length == 0) {
+            return method;
+        }
+        // 与 Spring 的 SimpleKeyGenerator 一致：单个非 null、非数组的参数使用参数本身，其他情况按内容比较
+        if (args.length == 1 && args[0] != null && !args[0].getClass().isArray()) {
+            return args[0];
+        }
+        return new CacheKey(args);
+    }
+
+    private static Object generateBulkKey(String key, Method method, Object[] args, Object id) {
+        return StrUtil.isEmpty(key) ? id : SpringExpressionUtils.getValue(key, bulkContext(method, args, id));
+    }
+
+    private static EvaluationContext bulkContext(Method method, Object[] args, Object id) {
+        EvaluationContext context = SpringExpressionUtils.createContext(method, args);
+        context.setVariable("id", id);
+        return context;
+    }
+
+    /**
+     * @return 刷新时判断是否不缓存，每次创建新的上下文；没有 unless 时返回 null
+     */
+    private static Predicate<Object> unless(String unless, Supplier<EvaluationContext> context) {
+        return StrUtil.isEmpty(unless) ? null : result -> isUnless(unless, context.get(), result);
+    }
+
+    private static boolean isUnless(String unless, EvaluationContext context, Object result) {
+        if (StrUtil.isEmpty(unless)) {
+            return false;
+        }
+        context.setVariable("result", result);
+        return isTrue(unless, context);
+    }
+
+    private static boolean isTrue(String expression, EvaluationContext context) {
+        return Boolean.TRUE.equals(SpringExpressionUtils.getValue(expression, context));
+    }
+
+    /**
+     * 先 get 再 computeIfAbsent：Java 8 的 ConcurrentHashMap#computeIfAbsent 在 key 已存在时也会锁住哈希桶
+     */
+    private Cache<Object, CacheValue> getCache(Cached cached) {
+        Cache<Object, CacheValue> cache = caches.get(cached.value());
+        return cache != null ? cache : caches.computeIfAbsent(cached.value(), name -> buildCache(cached));
+    }
+
+    private BulkParameter getBulkParameter(Method method) {
+        BulkParameter parameter = bulkParameters.get(method);
+        return parameter != null ? parameter : bulkParameters.computeIfAbsent(method, BulkParameter::of);
+    }
+
+    /**
+     * 刷新时在线程池中重新调用方法
+     */
+    private static Object proceed(ProceedingJoinPoint joinPoint, Object[] args) throws Exception {
+        try {
+            return joinPoint.proceed(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存的值，value 可以为 null；reloader 用于刷新，unless 用于判断刷新的结果是否不缓存，不刷新的缓存两者都为 null
+     */
+    private static final class CacheValue {
+
+        private final Object value;
+        private final Callable<Object> reloader;
+        private final Predicate<Object> unless;
+
+        private CacheValue(Object value, Callable<Object> reloader, Predicate<Object> unless) {
+            this.value = value;
+            this.reloader = reloader;
+            this.unless = unless;
+        }
+
+    }
+
+    /**
+     * 多个参数（或 null、数组参数）的 key，按数组内容比较，与 Spring 的 SimpleKey 相同
+     */
+    private static final class CacheKey {
+
+        private final Object[] args;
+        private final int hashCode;
+
+        private CacheKey(Object[] args) {
+            this.args = args.clone();
+            this.hashCode = Arrays.deepHashCode(this.args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof CacheKey && Arrays.deepEquals(args, ((CacheKey) o).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.deepToString(args);
+        }
+
+    }
+
+    /**
+     * 批量模式中 id 集合参数的位置，以及创建同类型集合的方式
+     */
+    private static final class BulkParameter {
+
+        private final int index;
+        private final IntFunction<Collection<Object>> factory;
+
+        private BulkParameter(int index, IntFunction<Collection<Object>> factory) {
+            this.index = index;
+            this.factory = factory;
+        }
+
+        private static BulkParameter of(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                if (!Collection.class.isAssignableFrom(types[i])) {
+                    continue;
+                }
+                if (types[i].isAssignableFrom(ArrayList.class)) {
+                    return new BulkParameter(i, ArrayList::new);
+                }
+                if (types[i].isAssignableFrom(LinkedHashSet.class)) {
+                    return new BulkParameter(i, size -> new LinkedHashSet<>(size * 2));
+                }
+                throw new IllegalStateException("批量缓存的方法(" + method + ")的 id 集合参数必须为 Collection、List 或 Set");
+            }
+            throw new IllegalStateException("批量缓存的方法(" + method + ")没有 Collection 类型的参数");
+        }
+
+        private Collection<Object> singleton(Object id) {
+            Collection<Object> ids = factory.apply(1);
+            ids.add(id);
+            return ids;
+        }
+
+    }
+
+}
@@ -0,0 +1,230 @@
+package org.madcoder.util.spring;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图，单位纳秒，无锁、固定内存
+ * <p>
+ * 桶按对数-线性划分（与 HdrHistogram 相同的思路）：0 ~ 63 每个值一个桶，之后每个 2 的幂区间再均分为 32 个桶，
+ * 相对误差不超过 1/32（约 3%）；最大记录约 2^40 纳秒（约 18 分钟），更大的值计入最后一个桶，最大值仍然准确。
+ * 共 {@value #BUCKET_COUNT} 个桶，每组约 9KB。计数按 {@link LongAdder} 的方式分组：开始只有一组，
+ * 多个线程同时自增同一个桶发生 CAS 失败时才扩容（最多为 CPU 数向上取整到 2 的幂组），线程按各自的探针选择分组，
+ * 之后各线程基本不再竞争同一个缓存行；{@link #snapshot()} 时合并所有分组。
+ * 记录一次是一次 ThreadLocal 读取、一次数组元素的 CAS、一次 LongAdder 累加与一次最大值的读取。
+ *
+ * @author madcoder
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 最大的桶覆盖的最高位
+     */
+    private static final int MAX_EXPONENT = 39;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    /**
+     * 最大分组数
+     */
+    private static final int MAX_STRIPES = maxStripes(Runtime.getRuntime().availableProcessors());
+    /**
+     * 每个线程的探针，竞争时重新生成，用于选择分组
+     */
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[]{ThreadLocalRandom.current().nextInt() | 1});
+
+    /**
+     * 计数分组，长度为 2 的幂，只在竞争时扩容
+     */
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKET_COUNT)};
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时，单位纳秒，负数按 0 记录
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        increment(bucketIndex(value));
+        sum.add(value);
+        // 大多数情况下不是最大值，只读一次
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 清空记录；与 record 并发时，并发的记录可能部分丢失
+     */
+    public void reset() {
+        for (AtomicLongArray counts : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts.set(i, 0);
+            }
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * @return 当前的统计，与 record 并发时各项之间可能有少量不一致
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long total = 0;
+        AtomicLongArray[] stripes = this.stripes;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            for (AtomicLongArray counts : stripes) {
+                buckets[i] += counts.get(i);
+            }
+            total += buckets[i];
+        }
+        return new Snapshot(buckets, total, sum.sum(), max.get());
+    }
+
+    private void increment(int index) {
+        int[] probe = PROBE.get();
+        AtomicLongArray[] stripes = this.stripes;
+        AtomicLongArray counts = stripes[probe[0] & (stripes.length - 1)];
+        long current = counts.get(index);
+        if (counts.compareAndSet(index, current, current + 1)) {
+            return;
+        }
+        // 发生竞争：换一个探针，分组未达上限时扩容，下一次记录分散到其他分组
+        int h = probe[0];
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        probe[0] = h;
+        if (stripes.length < MAX_STRIPES) {
+            grow(stripes);
+        }
+        counts.incrementAndGet(index);
+    }
+
+    private synchronized void grow(AtomicLongArray[] expected) {
+        if (stripes != expected) {
+            return;
+        }
+        AtomicLongArray[] grown = Arrays.copyOf(expected, expected.length << 1);
+        for (int i = expected.length; i < grown.length; i++) {
+            grown[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+        stripes = grown;
+    }
+
+    private static int maxStripes(int processors) {
+        return processors <= 1 ? 1 : Integer.highestOneBit(processors - 1) << 1;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT * 2) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        // 最高的 SUB_BUCKET_BITS + 1 位决定桶，取值 [32, 63]
+        return (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + (int) (value >>> (exponent - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * @return 桶中的最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long mantissa = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 直方图某一时刻的统计，不可变，单位纳秒
+     */
+    public static final class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * 获得百分位的值，返回所在桶的最大值（不超过记录的最大值）
+         *
+         * @param percentile 百分位，0 ~ 100
+         * @return 耗时，没有记录时返回 0
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    // 最后一个桶没有上界
+                    return i == buckets.length - 1 ? max : Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getP50() {
+            return getValueAtPercentile(50);
+        }
+
+        public long getP90() {
+            return getValueAtPercentile(90);
+        }
+
+        public long getP99() {
+            return getValueAtPercentile(99);
+        }
+
+        public long getP999() {
+            return getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + (long) getMean() + "ns, p50=" + getP50() + "ns, p90=" + getP90()
+                    + "ns, p99=" + getP99() + "ns, p999=" + getP999() + "ns, max=" + max + "ns";
+        }
+
+    }
+
+}
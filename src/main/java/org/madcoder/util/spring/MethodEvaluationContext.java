@@ -0,0 +1,100 @@
+package org.madcoder.util.spring;
+
+import org.springframework.expression.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法调用的表达式上下文，只读取参数，不复制
+ * <p>
+ * 参数按 {@link SpringExpressionUtils} 缓存的“参数名 → 下标”在 {@link #lookupVariable(String)} 时才从参数数组中取值，
+ * 属性访问器、方法解析器、类型转换等全部委托给共享的 {@link EvaluationContext}，每次调用只创建本对象；
+ * 通过 {@link #setVariable(String, Object)} 设置的变量只在本上下文中可见。
+ *
+ * @author madcoder
+ */
+final class MethodEvaluationContext implements EvaluationContext {
+
+    private final EvaluationContext shared;
+    private final Map<String, Integer> parameterIndexes;
+    private final Object[] args;
+    /**
+     * 额外设置的变量，大多数调用没有，按需创建
+     */
+    private Map<String, Object> variables;
+
+    MethodEvaluationContext(EvaluationContext shared, Map<String, Integer> parameterIndexes, Object[] args) {
+        this.shared = shared;
+        this.parameterIndexes = parameterIndexes;
+        this.args = args;
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+        if (variables == null) {
+            variables = new HashMap<>(4);
+        }
+        variables.put(name, value);
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        // 与 StandardEvaluationContext 一致，后设置的变量覆盖参数
+        if (variables != null && variables.containsKey(name)) {
+            return variables.get(name);
+        }
+        Integer index = parameterIndexes.get(name);
+        if (index != null && index < args.length) {
+            return args[index];
+        }
+        return shared.lookupVariable(name);
+    }
+
+    @Override
+    public TypedValue getRootObject() {
+        return shared.getRootObject();
+    }
+
+    @Override
+    public List<PropertyAccessor> getPropertyAccessors() {
+        return shared.getPropertyAccessors();
+    }
+
+    @Override
+    public List<ConstructorResolver> getConstructorResolvers() {
+        return shared.getConstructorResolvers();
+    }
+
+    @Override
+    public List<MethodResolver> getMethodResolvers() {
+        return shared.getMethodResolvers();
+    }
+
+    @Override
+    public BeanResolver getBeanResolver() {
+        return shared.getBeanResolver();
+    }
+
+    @Override
+    public TypeLocator getTypeLocator() {
+        return shared.getTypeLocator();
+    }
+
+    @Override
+    public TypeConverter getTypeConverter() {
+        return shared.getTypeConverter();
+    }
+
+    @Override
+    public TypeComparator getTypeComparator() {
+        return shared.getTypeComparator();
+    }
+
+    @Override
+    public OperatorOverloader getOperatorOverloader() {
+        return shared.getOperatorOverloader();
+    }
+
+}
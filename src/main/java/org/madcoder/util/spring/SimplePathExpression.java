@@ -0,0 +1,253 @@
+package org.madcoder.util.spring;
+
+import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 简单路径表达式（#userId、#req.order.id）的快速执行
+ * <p>
+ * 解析时检查 SpEL 的语法树，只有“变量 + 若干个非空安全的属性”才走这里：变量从上下文中读取，
+ * 属性通过缓存的 getter {@link MethodHandle} 读取，不经过 SpEL 的解释器。
+ * 结果与 SpEL 一致由以下约定保证：按 SpEL 的 ReflectivePropertyAccessor 的顺序查找 getXxx()、isXxx()（返回 boolean / Boolean）、
+ * xxx() 与 public 字段，找到的第一个是 public 类上 public、非 static 的成员时才直接读取，否则（以及 Class）交给 SpEL 执行剩余的路径，
+ * 已经读取过的 getter 不会重复调用。
+ * 中间值为 null、getter 抛出异常时直接抛出与 SpEL 相同的 {@link SpelEvaluationException}，getter 抛出的 Error 原样抛出。
+ *
+ * @author madcoder
+ */
+final class SimplePathExpression {
+
+    /**
+     * 没有可用 getter 时的占位
+     */
+    private static final MethodHandle NO_GETTER = MethodHandles.constant(Object.class, null);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * 解析剩余路径，只包含属性，与原表达式的解析配置无关
+     */
+    private static final SpelExpressionParser TAIL_PARSER = new SpelExpressionParser();
+
+    /**
+     * 每个类的“属性名 → getter”，随类卸载回收
+     */
+    private static final ClassValue<Map<String, MethodHandle>> GETTERS = new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String variable;
+    private final Property[] properties;
+
+    private SimplePathExpression(String variable, Property[] properties) {
+        this.variable = variable;
+        this.properties = properties;
+    }
+
+    /**
+     * 识别简单路径表达式
+     *
+     * @param expression 解析后的表达式
+     * @return 不是简单路径时返回 null
+     */
+    static SimplePathExpression of(Expression expression) {
+        if (!(expression instanceof SpelExpression)) {
+            return null;
+        }
+        SpelNode ast = ((SpelExpression) expression).getAST();
+        SpelNode first = ast instanceof CompoundExpression ? ast.getChild(0) : ast;
+        if (!(first instanceof VariableReference)) {
+            return null;
+        }
+        // #root、#this 由 SpEL 特殊处理，不从上下文的变量中读取
+        String variable = first.toStringAST().substring(1);
+        if ("root".equals(variable) || "this".equals(variable)) {
+            return null;
+        }
+        int count = ast == first ? 0 : ast.getChildCount() - 1;
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            SpelNode child = ast.getChild(i + 1);
+            if (!(child instanceof PropertyOrFieldReference) || ((PropertyOrFieldReference) child).isNullSafe()) {
+                return null;
+            }
+            names[i] = ((PropertyOrFieldReference) child).getName();
+        }
+        Property[] properties = new Property[count];
+        for (int i = 0; i < count; i++) {
+            properties[i] = new Property(names[i], String.join(".", Arrays.asList(names).subList(i, count)));
+        }
+        return new SimplePathExpression(variable, properties);
+    }
+
+    /**
+     * 执行表达式
+     *
+     * @param context  上下文，属性访问器必须是默认的
+     * @param fallback 无法快速执行时使用的 SpEL 表达式
+     * @return 结果
+     */
+    Object getValue(EvaluationContext context, Expression fallback) {
+        Object value = context.lookupVariable(variable);
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            if (value == null) {
+                throw new SpelEvaluationException(SpelMessage.PROPERTY_OR_FIELD_NOT_READABLE_ON_NULL, property.name);
+            }
+            MethodHandle getter = value instanceof Class ? NO_GETTER : property.getter(value.getClass());
+            if (getter == NO_GETTER) {
+                // 第一个属性之前只读取了变量，可以整体交给 SpEL；之后只执行剩余的路径，不重复调用前面的 getter
+                return i == 0 ? fallback.getValue(context) : property.tail().getValue(context, value);
+            }
+            value = property.read(getter, value);
+        }
+        return value;
+    }
+
+    /**
+     * 路径中的一个属性，缓存最近一次的类型与 getter
+     */
+    private static final class Property {
+
+        private final String name;
+        /**
+         * 与 ReflectivePropertyAccessor#getPropertyMethodSuffixes 一致的方法名后缀
+         */
+        private final String[] suffixes;
+        /**
+         * 从这个属性开始的剩余路径，如 order.id
+         */
+        private final String tailString;
+        private volatile Expression tail;
+        private volatile CachedGetter cached;
+
+        private Property(String name, String tailString) {
+            this.name = name;
+            this.tailString = tailString;
+            String suffix = name.length() > 1 && Character.isUpperCase(name.charAt(1)) ? name
+                    : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String capitalized = Character.toUpperCase(suffix.charAt(0)) + suffix.substring(1);
+            this.suffixes = suffix.equals(capitalized) ? new String[]{suffix} : new String[]{suffix, capitalized};
+        }
+
+        private MethodHandle getter(Class<?> type) {
+            CachedGetter cached = this.cached;
+            if (cached != null && cached.type == type) {
+                return cached.getter;
+            }
+            Map<String, MethodHandle> getters = GETTERS.get(type);
+            MethodHandle getter = getters.get(name);
+            if (getter == null) {
+                getter = getters.computeIfAbsent(name, key -> findGetter(type, this));
+            }
+            this.cached = new CachedGetter(type, getter);
+            return getter;
+        }
+
+        /**
+         * 读取属性，异常的包装与 SpEL 通过反射调用 getter 时相同
+         */
+        private Object read(MethodHandle getter, Object target) {
+            try {
+                return getter.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                AccessException cause = new AccessException("Unable to access property '" + name + "' through getter method",
+                        new InvocationTargetException(e));
+                throw new SpelEvaluationException(cause, SpelMessage.EXCEPTION_DURING_PROPERTY_READ, name, cause.getMessage());
+            }
+        }
+
+        private Expression tail() {
+            Expression tail = this.tail;
+            if (tail == null) {
+                tail = TAIL_PARSER.parseExpression(tailString);
+                this.tail = tail;
+            }
+            return tail;
+        }
+
+    }
+
+    private static final class CachedGetter {
+
+        private final Class<?> type;
+        private final MethodHandle getter;
+
+        private CachedGetter(Class<?> type, MethodHandle getter) {
+            this.type = type;
+            this.getter = getter;
+        }
+
+    }
+
+    /**
+     * 与 ReflectivePropertyAccessor 的查找顺序一致：getXxx()、isXxx()（返回 boolean / Boolean）、xxx()、字段，
+     * SpEL 会使用的第一个成员不能直接读取时返回 {@link #NO_GETTER}，不继续查找，避免与 SpEL 读取不同的成员
+     */
+    private static MethodHandle findGetter(Class<?> type, Property property) {
+        try {
+            for (String suffix : property.suffixes) {
+                Method method = findMethod(type, "get" + suffix);
+                if (method != null) {
+                    return unreflect(method);
+                }
+            }
+            for (String suffix : property.suffixes) {
+                Method method = findMethod(type, "is" + suffix);
+                if (method != null && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                    return unreflect(method);
+                }
+            }
+            Method method = findMethod(type, property.name);
+            if (method != null) {
+                return unreflect(method);
+            }
+            Field field = type.getField(property.name);
+            return isReadable(field) ? MethodHandles.publicLookup().unreflectGetter(field).asType(GETTER_TYPE) : NO_GETTER;
+        } catch (NoSuchFieldException | IllegalAccessException | SecurityException e) {
+            return NO_GETTER;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        return isReadable(method) && method.getReturnType() != void.class
+                ? MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE) : NO_GETTER;
+    }
+
+    private static boolean isReadable(Member member) {
+        return !Modifier.isStatic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers());
+    }
+
+}
@@ -1,19 +1,51 @@
 package org.madcoder.util.spring;
 
-import cn.hutool.core.bean.BeanUtil;
-import org.springframework.aop.framework.AdvisedSupport;
-import org.springframework.aop.framework.AopProxy;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.Advised;
 import org.springframework.aop.support.AopUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
 /**
  * Spring AOP 工具类
+ * <p>
+ * 代理对象一般实现了 {@link Advised}，直接通过接口获取 TargetSource；
+ * 设置了 opaque 的代理读取内部字段，字段按类缓存为 {@link MethodHandle}。
+ * 多层代理逐层展开，每一层都是已冻结（{@link Advised#isFrozen()}）的代理且 TargetSource 是静态的，才按代理对象缓存最终的目标对象；
+ * 缓存之后再通过 {@link Advised#setTargetSource} 替换目标不会被感知，需要替换目标的代理不要冻结。
  *
  *
  */
 public class SpringAopUtils {
 
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * CGLIB 代理类的 CGLIB$CALLBACK_0 字段（DynamicAdvisedInterceptor）
+     */
+    private static final ClassValue<MethodHandle> CGLIB_CALLBACK = new FieldGetter("CGLIB$CALLBACK_0");
+    /**
+     * JdkDynamicAopProxy、DynamicAdvisedInterceptor 的 advised 字段
+     */
+    private static final ClassValue<MethodHandle> ADVISED = new FieldGetter("advised");
+
     /**
-     * 获取代理对象的目标对象。
+     * 代理对象 → 目标对象，按对象标识比较；
+     * 目标对象由代理强引用，值也使用弱引用，目标对象持有自身代理（自注入）时不会阻止回收
+     */
+    private static final Cache<Object, Object> STATIC_TARGETS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .weakValues()
+            .build();
+
+    /**
+     * 获取代理对象的目标对象，多层代理时返回最内层的目标对象。
      * @param proxy 代理对象
      * @return 目标对象
      * @throws Exception 获取失败时抛出异常
@@ -23,36 +55,77 @@ public class SpringAopUtils {
         if (!AopUtils.isAopProxy(proxy)) {
             return proxy;
         }
-        // Jdk 代理
-        if (AopUtils.isJdkDynamicProxy(proxy)) {
-            return getJdkDynamicProxyTargetObject(proxy);
+        Object target = STATIC_TARGETS.getIfPresent(proxy);
+        if (target != null) {
+            return target;
         }
-        // Cglib 代理
-        return getCglibProxyTargetObject(proxy);
+        boolean allStatic = true;
+        target = proxy;
+        do {
+            Advised advised = getAdvised(target);
+            TargetSource targetSource = advised.getTargetSource();
+            allStatic &= advised.isFrozen() && targetSource.isStatic();
+            target = targetSource.getTarget();
+        } while (target != null && AopUtils.isAopProxy(target));
+        if (allStatic && target != null) {
+            STATIC_TARGETS.put(proxy, target);
+        }
+        return target;
     }
 
     /**
-     * 获取 CGLIB 代理对象的目标对象。
-     * @param proxy CGLIB 代理对象
-     * @return 目标对象
+     * 获取代理对象的配置。
+     * @param proxy 代理对象
+     * @return 代理配置
      * @throws Exception 获取失败时抛出异常
      */
-    private static Object getCglibProxyTargetObject(Object proxy) throws Exception {
-        Object dynamicAdvisedInterceptor = BeanUtil.getFieldValue(proxy, "CGLIB$CALLBACK_0");
-        AdvisedSupport advisedSupport = (AdvisedSupport) BeanUtil.getFieldValue(dynamicAdvisedInterceptor, "advised");
-        return advisedSupport.getTargetSource().getTarget();
+    private static Advised getAdvised(Object proxy) throws Exception {
+        if (proxy instanceof Advised) {
+            return (Advised) proxy;
+        }
+        // opaque 代理，Jdk 代理从 InvocationHandler 中读取，Cglib 代理从第一个回调中读取
+        Object holder = Proxy.isProxyClass(proxy.getClass()) ? Proxy.getInvocationHandler(proxy)
+                : readField(CGLIB_CALLBACK, proxy);
+        return (Advised) readField(ADVISED, holder);
+    }
+
+    private static Object readField(ClassValue<MethodHandle> getter, Object target) throws Exception {
+        try {
+            return getter.get(target.getClass()).invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * 获取 JDK 动态代理对象的目标对象。
-     * @param proxy JDK 动态代理对象
-     * @return 目标对象
-     * @throws Exception 获取失败时抛出异常
+     * 按类缓存的字段读取，字段可以声明在父类中
      */
-    private static Object getJdkDynamicProxyTargetObject(Object proxy) throws Exception {
-        AopProxy aopProxy = (AopProxy) BeanUtil.getFieldValue(proxy, "h");
-        AdvisedSupport advisedSupport = (AdvisedSupport) BeanUtil.getFieldValue(aopProxy, "advised");
-        return advisedSupport.getTargetSource().getTarget();
+    private static final class FieldGetter extends ClassValue<MethodHandle> {
+
+        private final String name;
+
+        private FieldGetter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                try {
+                    Field field = clazz.getDeclaredField(name);
+                    field.setAccessible(true);
+                    return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+                } catch (NoSuchFieldException e) {
+                    // 继续查找父类
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            throw new IllegalStateException("类(" + type.getName() + ")中不存在字段(" + name + ")");
+        }
+
     }
 
 }
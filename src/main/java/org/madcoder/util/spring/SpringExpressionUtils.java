@@ -3,36 +3,84 @@ package org.madcoder.util.spring;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.ArrayUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 import java.lang.reflect.Method;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Spring EL 表达式的工具类
+ * <p>
+ * 解析后的 {@link Expression} 按表达式字符串缓存（有界），同一个注解上的表达式只解析一次；
+ * 可通过 {@link #setCompilerMode(SpelCompilerMode)} 开启 SpEL 编译，热点表达式编译为字节码执行。
+ * 在 {@link #createContext(Method, Object[])} 创建的上下文中，#userId、#req.order.id 这类简单路径不经过 SpEL 解释器，
+ * 直接调用缓存的 getter，见 {@link SimplePathExpression}。
  *
  * @author madCoder
  */
 public class SpringExpressionUtils {
 
     /**
-     * spel表达式解析器
+     * 表达式缓存的最大数量
      */
-    private static final ExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+    private static final int EXPRESSION_CACHE_SIZE = 1024;
+
+    /**
+     * spel表达式解析器，修改编译模式时替换
+     */
+    private static volatile SpelExpressionParser expressionParser = new SpelExpressionParser();
+    /**
+     * 解析后的表达式缓存，key 为表达式字符串
+     */
+    private static final Cache<String, CachedExpression> EXPRESSION_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(EXPRESSION_CACHE_SIZE)
+            .build();
+    /**
+     * 是否统计每个表达式的执行次数与耗时，默认关闭
+     */
+    private static volatile boolean statsEnabled;
     /**
      * 参数名发现器
      */
     private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+    /**
+     * 方法的“参数名 → 下标”，按方法缓存；类卸载后由 GC 回收
+     */
+    private static final Map<Method, Map<String, Integer>> PARAMETER_INDEXES = new ConcurrentReferenceHashMap<>();
+    /**
+     * 所有方法上下文共享的属性访问器、方法解析器、类型转换等，初始化后只读
+     */
+    private static final StandardEvaluationContext SHARED_CONTEXT = new StandardEvaluationContext();
+
+    static {
+        // StandardEvaluationContext 的各项配置是懒加载的，提前初始化，避免并发读取时重复创建
+        SHARED_CONTEXT.getPropertyAccessors();
+        SHARED_CONTEXT.getConstructorResolvers();
+        SHARED_CONTEXT.getMethodResolvers();
+        SHARED_CONTEXT.getTypeLocator();
+        SHARED_CONTEXT.getTypeConverter();
+    }
 
     private SpringExpressionUtils() {
     }
@@ -61,26 +109,14 @@ public class SpringExpressionUtils {
             return MapUtil.newHashMap();
         }
 
-        // 第一步，构建解析的上下文 EvaluationContext
-        // 通过 joinPoint 获取被注解方法
+        // 第一步，构建解析的上下文 EvaluationContext，参数名按方法缓存，参数在表达式读取时才绑定
         MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        // 使用 spring 的 ParameterNameDiscoverer 获取方法形参名数组
-        String[] paramNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
-        // Spring 的表达式上下文对象
-        EvaluationContext context = new StandardEvaluationContext();
-        // 给上下文赋值
-        if (ArrayUtil.isNotEmpty(paramNames)) {
-            Object[] args = joinPoint.getArgs();
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
-        }
+        EvaluationContext context = createContext(methodSignature.getMethod(), joinPoint.getArgs());
 
         // 第二步，逐个参数解析
         Map<String, Object> result = MapUtil.newHashMap(expressionStrings.size(), true);
         expressionStrings.forEach(key -> {
-            Object value = EXPRESSION_PARSER.parseExpression(key).getValue(context);
+            Object value = getValue(key, context);
             result.put(key, value);
         });
         return result;
@@ -99,30 +135,200 @@ public class SpringExpressionUtils {
             return MapUtil.newHashMap();
         }
 
-        // 第一步，构建解析的上下文 EvaluationContext
-        // 通过 joinPoint 获取被注解方法
+        // 第一步，构建解析的上下文 EvaluationContext，参数名按方法缓存，参数在表达式读取时才绑定
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        // 使用 spring 的 ParameterNameDiscoverer 获取方法形参名数组
-        String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
-        // Spring 的表达式上下文对象
-        EvaluationContext context = new StandardEvaluationContext();
-        if (ArrayUtil.isNotEmpty(parameterNames)) {
-            //获取方法参数值
-            Object[] args = joinPoint.getArgs();
-            for (int i = 0; i < args.length; i++) {
-                // 替换 SP EL 里的变量值为实际值， 比如 #user --> user对象
-                context.setVariable(parameterNames[i], args[i]);
-            }
-            context.setVariable("info", info);
-        }
+        EvaluationContext context = createContext(signature.getMethod(), joinPoint.getArgs());
+        context.setVariable("info", info);
         // 第二步，逐个参数解析
         Map<String, Object> result = MapUtil.newHashMap(expressionStrings.size(), true);
         expressionStrings.forEach(key -> {
-            Object value = EXPRESSION_PARSER.parseExpression(key).getValue(context);
+            Object value = getValue(key, context);
             result.put(key, value);
         });
         return result;
     }
 
+    /**
+     * 创建方法调用的表达式上下文，可以通过参数名（如 #user）或下标（#p0、#a0）引用参数
+     * <p>
+     * 参数名按方法缓存，上下文只持有参数数组，表达式读取变量时才取值；属性访问器等共享，
+     * 可用于切面中需要多次执行表达式的场景
+     *
+     * @param method 方法
+     * @param args   参数
+     * @return 上下文
+     */
+    public static EvaluationContext createContext(Method method, Object[] args) {
+        // 先 get：Java 8 的 computeIfAbsent 在 key 已存在时也会加锁
+        Map<String, Integer> parameterIndexes = PARAMETER_INDEXES.get(method);
+        if (parameterIndexes == null) {
+            parameterIndexes = PARAMETER_INDEXES.computeIfAbsent(method, SpringExpressionUtils::buildParameterIndexes);
+        }
+        return new MethodEvaluationContext(SHARED_CONTEXT, parameterIndexes, args != null ? args : new Object[0]);
+    }
+
+    private static Map<String, Integer> buildParameterIndexes(Method method) {
+        // 使用 spring 的 ParameterNameDiscoverer 获取方法形参名数组，读取调试信息或反射，只在第一次调用时执行
+        String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
+        int count = method.getParameterCount();
+        Map<String, Integer> result = new HashMap<>(count * 4);
+        if (ArrayUtil.isNotEmpty(parameterNames)) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                result.put(parameterNames[i], i);
+            }
+        }
+        // 与 MethodBasedEvaluationContext 一致，支持 #p0、#a0，参数名优先
+        for (int i = 0; i < count; i++) {
+            result.putIfAbsent("p" + i, i);
+            result.putIfAbsent("a" + i, i);
+        }
+        return result;
+    }
+
+    /**
+     * 设置 SpEL 的编译模式，并清空已缓存的表达式
+     * <p>
+     * 默认为 {@link SpelCompilerMode#OFF}，即解释执行；{@link SpelCompilerMode#IMMEDIATE} 在第一次解释执行后编译，
+     * {@link SpelCompilerMode#MIXED} 在编译执行失败时回退为解释执行。适用于调用频繁、类型稳定的表达式。
+     *
+     * @param mode 编译模式
+     */
+    public static void setCompilerMode(SpelCompilerMode mode) {
+        expressionParser = new SpelExpressionParser(new SpelParserConfiguration(mode, SpringExpressionUtils.class.getClassLoader()));
+        EXPRESSION_CACHE.invalidateAll();
+    }
+
+    /**
+     * 开启或关闭表达式的执行统计，开启后每次执行额外调用两次 {@link System#nanoTime()}
+     *
+     * @param enabled 是否开启
+     */
+    public static void setStatsEnabled(boolean enabled) {
+        statsEnabled = enabled;
+    }
+
+    /**
+     * 获得缓存中每个表达式的统计
+     *
+     * @return key 为表达式字符串
+     */
+    public static Map<String, ExpressionStats> getExpressionStats() {
+        Map<String, ExpressionStats> result = MapUtil.newHashMap(Math.toIntExact(EXPRESSION_CACHE.size()));
+        EXPRESSION_CACHE.asMap().forEach((key, expression) -> result.put(key, new ExpressionStats(key,
+                expression.hits.sum(), expression.evaluations.sum(), expression.evaluationNanos.sum())));
+        return result;
+    }
+
+    /**
+     * 获得解析后的表达式，按表达式字符串缓存
+     *
+     * @param expressionString 表达式字符串
+     * @return 表达式
+     */
+    public static Expression getExpression(String expressionString) {
+        return getCachedExpression(expressionString).expression;
+    }
+
+    /**
+     * 在指定上下文中执行表达式，表达式解析后缓存
+     *
+     * @param expressionString 表达式字符串
+     * @param context          上下文
+     * @return 执行结果
+     */
+    public static Object getValue(String expressionString, EvaluationContext context) {
+        CachedExpression expression = getCachedExpression(expressionString);
+        if (!statsEnabled) {
+            return expression.getValue(context);
+        }
+        long start = System.nanoTime();
+        try {
+            return expression.getValue(context);
+        } finally {
+            expression.evaluations.increment();
+            expression.evaluationNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static CachedExpression getCachedExpression(String expressionString) {
+        CachedExpression expression = EXPRESSION_CACHE.getIfPresent(expressionString);
+        if (expression != null) {
+            if (statsEnabled) {
+                expression.hits.increment();
+            }
+            return expression;
+        }
+        try {
+            return EXPRESSION_CACHE.get(expressionString,
+                    () -> new CachedExpression(expressionParser.parseExpression(expressionString)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            // 解析失败抛出的 ParseException 等运行时异常，原样抛出
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * 缓存的表达式及其统计
+     */
+    private static final class CachedExpression {
+
+        private final Expression expression;
+        /**
+         * 简单路径的快速执行，不是简单路径时为 null
+         */
+        private final SimplePathExpression simplePath;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder evaluationNanos = new LongAdder();
+
+        private CachedExpression(Expression expression) {
+            this.expression = expression;
+            this.simplePath = SimplePathExpression.of(expression);
+        }
+
+        private Object getValue(EvaluationContext context) {
+            // 只有 createContext 创建的上下文才确定使用默认的属性访问器
+            if (simplePath != null && context instanceof MethodEvaluationContext) {
+                return simplePath.getValue(context, expression);
+            }
+            return expression.getValue(context);
+        }
+
+    }
+
+    /**
+     * 表达式的统计
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class ExpressionStats {
+
+        /**
+         * 表达式字符串
+         */
+        private final String expression;
+        /**
+         * 缓存命中次数
+         */
+        private final long hits;
+        /**
+         * 执行次数
+         */
+        private final long evaluations;
+        /**
+         * 执行总耗时，单位纳秒
+         */
+        private final long evaluationNanos;
+
+        /**
+         * @return 平均执行耗时，单位纳秒
+         */
+        public long getAverageNanos() {
+            return evaluations > 0 ? evaluationNanos / evaluations : 0;
+        }
+
+    }
+
 }
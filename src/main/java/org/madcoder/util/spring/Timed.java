@@ -0,0 +1,31 @@
+package org.madcoder.util.spring;
+
+import java.lang.annotation.*;
+
+/**
+ * 记录方法的耗时，由 {@link TimedAspect} 记录到 {@link LatencyHistogram} 中
+ * <p>
+ * 没有 tags 时每次调用只有两次 {@link System#nanoTime()} 与一次记录；tags 需要执行 SpEL，开销随表达式增加。例如：
+ * <pre>
+ * &#64;Timed(value = "order.create", tags = {"channel", "#req.channel"})
+ * public Order create(CreateOrderReq req)
+ * </pre>
+ *
+ * @author madcoder
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Timed {
+
+    /**
+     * @return 名称，为空时使用“类名.方法名”
+     */
+    String value() default "";
+
+    /**
+     * @return 标签，依次为“标签名, 标签值的 SpEL 表达式”，同一个名称下不同的标签值分别统计，组合数量有上限，不要使用 userId 等取值很多的标签
+     */
+    String[] tags() default {};
+
+}
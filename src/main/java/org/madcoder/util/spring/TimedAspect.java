@@ -0,0 +1,241 @@
+package org.madcoder.util.spring;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.expression.EvaluationContext;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Timed} 的切面，需要注册为 Spring Bean
+ * <p>
+ * 切点不绑定注解参数（绑定时 AspectJ 每次调用都要做一次运行时匹配，开销在微秒级），注解与直方图按“方法 + 目标类”缓存，
+ * 没有标签的方法每次调用只有一次 ConcurrentHashMap 查询；有标签的方法每次调用执行标签的 SpEL，再按“名称 + 标签值”查询直方图。
+ * 标签在调用方法之前执行，执行失败时标签值记为 {@value #ERROR_TAG_VALUE}，不影响方法的调用与返回；
+ * 同一个名称下不同的标签值组合最多 {@value #DEFAULT_MAX_TAG_COMBINATIONS} 个（可在构造方法中修改），
+ * 超出的调用记录到 name{overflow} 中，内存固定。
+ * 方法抛出异常时同样记录耗时。统计通过 {@link #getSnapshots()} 获取，或调用 {@link #registerMBean()} 后通过 JMX 查看。
+ *
+ * @author madcoder
+ */
+@Slf4j
+@Aspect
+public class TimedAspect implements TimedMXBean {
+
+    private static final String OBJECT_NAME = "org.madcoder.util.spring:type=Timed";
+    private static final int DEFAULT_MAX_TAG_COMBINATIONS = 100;
+    private static final String ERROR_TAG_VALUE = "error";
+    private static final String OVERFLOW_SUFFIX = "{overflow}";
+
+    /**
+     * 名称（带标签时为 name{tag=value,...}） → 直方图
+     */
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    /**
+     * 方法 + 目标类 → 注解与直方图
+     */
+    private final ConcurrentMap<MethodClassKey, TimedMethod> methods = new ConcurrentHashMap<>();
+    /**
+     * 名称 → 已创建的标签值组合数量
+     */
+    private final ConcurrentMap<String, AtomicInteger> tagCombinations = new ConcurrentHashMap<>();
+    private final int maxTagCombinations;
+
+    public TimedAspect() {
+        this(DEFAULT_MAX_TAG_COMBINATIONS);
+    }
+
+    /**
+     * @param maxTagCombinations 同一个名称下最多的标签值组合数量
+     */
+    public TimedAspect(int maxTagCombinations) {
+        if (maxTagCombinations <= 0) {
+            throw new IllegalArgumentException("maxTagCombinations 必须大于 0");
+        }
+        this.maxTagCombinations = maxTagCombinations;
+    }
+
+    @Around("@annotation(org.madcoder.util.spring.Timed)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 在调用方法之前确定直方图，标签的执行不会影响方法的结果；注解配置错误时只记录日志，不统计
+        LatencyHistogram histogram;
+        try {
+            histogram = getHistogram(joinPoint);
+        } catch (RuntimeException e) {
+            log.error("[around][方法({}) 的 @Timed 配置错误]", joinPoint.getSignature(), e);
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 获得直方图，不存在时创建，可用于手动记录
+     *
+     * @param name 名称
+     * @return 直方图
+     */
+    public LatencyHistogram getHistogram(String name) {
+        // 先 get：Java 8 的 computeIfAbsent 在 key 已存在时也会加锁
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        histograms.forEach((name, histogram) -> result.put(name, histogram.snapshot()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * 注册到平台 MBeanServer，ObjectName 为 {@value #OBJECT_NAME}
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("注册 MBean(" + OBJECT_NAME + ") 失败", e);
+        }
+    }
+
+    /**
+     * 从平台 MBeanServer 注销
+     */
+    public void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("注销 MBean(" + OBJECT_NAME + ") 失败", e);
+        }
+    }
+
+    private LatencyHistogram getHistogram(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object target = joinPoint.getTarget();
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        TimedMethod timedMethod = methods.get(key);
+        if (timedMethod == null) {
+            timedMethod = methods.computeIfAbsent(key, k -> buildTimedMethod(method, targetClass));
+        }
+        if (timedMethod.histogram != null) {
+            return timedMethod.histogram;
+        }
+        String[] tags = timedMethod.timed.tags();
+        EvaluationContext context = SpringExpressionUtils.createContext(method, joinPoint.getArgs());
+        StringBuilder name = new StringBuilder(timedMethod.name).append('{');
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                name.append(',');
+            }
+            name.append(tags[i]).append('=').append(getTagValue(tags[i + 1], context));
+        }
+        return getTaggedHistogram(timedMethod.name, name.append('}').toString());
+    }
+
+    private static Object getTagValue(String expression, EvaluationContext context) {
+        try {
+            return SpringExpressionUtils.getValue(expression, context);
+        } catch (RuntimeException e) {
+            return ERROR_TAG_VALUE;
+        }
+    }
+
+    /**
+     * 获得带标签的直方图，标签值组合超出上限时返回 name{overflow}
+     */
+    private LatencyHistogram getTaggedHistogram(String name, String taggedName) {
+        LatencyHistogram histogram = histograms.get(taggedName);
+        if (histogram != null) {
+            return histogram;
+        }
+        AtomicInteger count = tagCombinations.get(name);
+        if (count == null) {
+            count = tagCombinations.computeIfAbsent(name, key -> new AtomicInteger());
+        }
+        // 已达上限时每次调用都会走到这里，直接记录到 name{overflow}，不再加锁
+        if (count.get() >= maxTagCombinations) {
+            return getHistogram(name + OVERFLOW_SUFFIX);
+        }
+        AtomicInteger created = count;
+        // computeIfAbsent 返回 null 时不创建
+        histogram = histograms.computeIfAbsent(taggedName,
+                key -> created.get() < maxTagCombinations && created.incrementAndGet() <= maxTagCombinations
+                        ? new LatencyHistogram() : null);
+        return histogram != null ? histogram : getHistogram(name + OVERFLOW_SUFFIX);
+    }
+
+    private TimedMethod buildTimedMethod(Method signatureMethod, Class<?> targetClass) {
+        // 与 @annotation 切点一致，从目标类上最具体的方法中读取注解
+        Method method = AopUtils.getMostSpecificMethod(signatureMethod, targetClass);
+        Timed timed = AnnotationUtils.findAnnotation(method, Timed.class);
+        if (timed == null) {
+            timed = AnnotationUtils.findAnnotation(signatureMethod, Timed.class);
+        }
+        if (timed == null) {
+            throw new IllegalStateException("方法(" + method + ")没有 @Timed 注解");
+        }
+        if (timed.tags().length % 2 != 0) {
+            throw new IllegalStateException("方法(" + method + ")的 @Timed tags 必须为“标签名, 表达式”成对出现");
+        }
+        String name = getName(method, timed);
+        return new TimedMethod(timed, name, timed.tags().length == 0 ? getHistogram(name) : null);
+    }
+
+    private static String getName(Method method, Timed timed) {
+        return StrUtil.isNotEmpty(timed.value()) ? timed.value()
+                : method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * 方法上的注解，没有标签时同时缓存直方图
+     */
+    private static final class TimedMethod {
+
+        private final Timed timed;
+        private final String name;
+        private final LatencyHistogram histogram;
+
+        private TimedMethod(Timed timed, String name, LatencyHistogram histogram) {
+            this.timed = timed;
+            this.name = name;
+            this.histogram = histogram;
+        }
+
+    }
+
+}
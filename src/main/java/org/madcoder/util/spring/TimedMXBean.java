@@ -0,0 +1,22 @@
+package org.madcoder.util.spring;
+
+import java.util.Map;
+
+/**
+ * {@link TimedAspect} 的 JMX 接口
+ *
+ * @author madcoder
+ */
+public interface TimedMXBean {
+
+    /**
+     * @return key 为名称（带标签时为 name{tag=value,...}），value 为耗时统计，单位纳秒
+     */
+    Map<String, LatencyHistogram.Snapshot> getSnapshots();
+
+    /**
+     * 清空全部统计
+     */
+    void reset();
+
+}
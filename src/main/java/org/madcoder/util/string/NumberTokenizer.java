@@ -0,0 +1,277 @@
+package org.madcoder.util.string;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 分隔符数字解析器，直接从 {@link CharSequence} 或 byte[] 区间解析整数，不创建子串，不装箱
+ * <p>
+ * 规则比 {@link cn.hutool.core.util.StrUtil#splitToLong(CharSequence, CharSequence)} 更严格：
+ * 每个数字前后的 ASCII 空白（&lt;= ' '）会被忽略，空的分段会被跳过；数字必须是合法的十进制 ASCII 整数，
+ * 0x 十六进制、全角数字、U+00A0 与 U+3000 等非 ASCII 空白、小数、溢出都视为错误，而不是截断或转换。
+ * <p>
+ * parseXxx 方法在热点路径上不抛异常：返回值 &gt;= 0 表示解析成功的数量，
+ * 返回值 &lt; 0 表示解析失败，出错的下标通过 {@link #errorIndex(int)} 获得。
+ *
+ * @author madcoder
+ */
+public class NumberTokenizer {
+
+    private NumberTokenizer() {
+    }
+
+    /**
+     * 将解析失败的返回值转换为出错的下标
+     *
+     * @param result parseXxx 的返回值，必须小于 0
+     * @return 出错的下标
+     */
+    public static int errorIndex(int result) {
+        return -result - 1;
+    }
+
+    /**
+     * 解析 [from, to) 区间内以 separator 分隔的 long
+     *
+     * @param str       字符串
+     * @param from      开始下标（包含）
+     * @param to        结束下标（不包含）
+     * @param separator 分隔符
+     * @param consumer  每个数字的回调
+     * @return &gt;= 0 为解析的数量；&lt; 0 为失败，见 {@link #errorIndex(int)}
+     */
+    public static int parseLongs(CharSequence str, int from, int to, char separator, LongConsumer consumer) {
+        return parse(str, from, to, separator, Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 解析 [from, to) 区间内以 separator 分隔的 int
+     *
+     * @see #parseLongs(CharSequence, int, int, char, LongConsumer)
+     */
+    public static int parseInts(CharSequence str, int from, int to, char separator, IntConsumer consumer) {
+        return parse(str, from, to, separator, Integer.MIN_VALUE, Integer.MAX_VALUE, value -> consumer.accept((int) value));
+    }
+
+    /**
+     * 解析 [from, to) 区间内以 separator 分隔的 long，适用于 ASCII 兼容编码（如 UTF-8）的字节
+     *
+     * @param bytes     字节数组
+     * @param from      开始下标（包含）
+     * @param to        结束下标（不包含）
+     * @param separator 分隔符
+     * @param consumer  每个数字的回调
+     * @return &gt;= 0 为解析的数量；&lt; 0 为失败，见 {@link #errorIndex(int)}
+     */
+    public static int parseLongs(byte[] bytes, int from, int to, byte separator, LongConsumer consumer) {
+        return parse(bytes, from, to, separator, Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 解析 [from, to) 区间内以 separator 分隔的 int，适用于 ASCII 兼容编码（如 UTF-8）的字节
+     *
+     * @see #parseLongs(byte[], int, int, byte, LongConsumer)
+     */
+    public static int parseInts(byte[] bytes, int from, int to, byte separator, IntConsumer consumer) {
+        return parse(bytes, from, to, separator, Integer.MIN_VALUE, Integer.MAX_VALUE, value -> consumer.accept((int) value));
+    }
+
+    /**
+     * 将以 separator 分隔的字符串解析为 long 数组
+     *
+     * @param str       字符串，为 null 时返回空数组
+     * @param separator 分隔符
+     * @return long 数组
+     * @throws NumberFormatException 格式错误时抛出，包含出错的下标
+     */
+    public static long[] splitToLongArray(CharSequence str, char separator) {
+        if (str == null) {
+            return new long[0];
+        }
+        LongCollector collector = new LongCollector(estimateCount(str, separator));
+        int result = parseLongs(str, 0, str.length(), separator, collector);
+        if (result < 0) {
+            throw formatError(str, errorIndex(result));
+        }
+        return collector.toArray();
+    }
+
+    /**
+     * 将以 separator 分隔的字符串解析为 int 数组
+     *
+     * @param str       字符串，为 null 时返回空数组
+     * @param separator 分隔符
+     * @return int 数组
+     * @throws NumberFormatException 格式错误时抛出，包含出错的下标
+     */
+    public static int[] splitToIntArray(CharSequence str, char separator) {
+        if (str == null) {
+            return new int[0];
+        }
+        LongCollector collector = new LongCollector(estimateCount(str, separator));
+        int result = parse(str, 0, str.length(), separator, Integer.MIN_VALUE, Integer.MAX_VALUE, collector);
+        if (result < 0) {
+            throw formatError(str, errorIndex(result));
+        }
+        int[] ints = new int[collector.size];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = (int) collector.values[i];
+        }
+        return ints;
+    }
+
+    private static NumberFormatException formatError(CharSequence str, int index) {
+        if (index >= str.length()) {
+            return new NumberFormatException("结尾缺少数字：\"" + str + "\"");
+        }
+        return new NumberFormatException("第 " + index + " 位的字符 '" + str.charAt(index) + "' 不是合法的数字：\"" + str + "\"");
+    }
+
+    private static int estimateCount(CharSequence str, char separator) {
+        int count = 1;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if (str.charAt(i) == separator) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int parse(CharSequence str, int from, int to, char separator, long min, long max, LongConsumer consumer) {
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            // 跳过前导空白
+            char c = str.charAt(i);
+            while (c != separator && c <= ' ' && ++i < to) {
+                c = str.charAt(i);
+            }
+            if (i == to) {
+                break;
+            }
+            // 空的分段
+            if (c == separator) {
+                i++;
+                continue;
+            }
+            boolean negative = c == '-';
+            if (negative || c == '+') {
+                i++;
+            }
+            // 与 Long.parseLong 相同，按负数累加，避免 MIN_VALUE 溢出
+            long limit = negative ? min : -max;
+            long multiplyMin = limit / 10;
+            long result = 0;
+            int digitsStart = i;
+            for (; i < to; i++) {
+                int digit = str.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (result < multiplyMin) {
+                    return -i - 1;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    return -i - 1;
+                }
+                result -= digit;
+            }
+            if (i == digitsStart) {
+                return -i - 1;
+            }
+            // 跳过尾随空白，之后必须是分隔符或结尾
+            while (i < to && (c = str.charAt(i)) != separator && c <= ' ') {
+                i++;
+            }
+            if (i < to && str.charAt(i) != separator) {
+                return -i - 1;
+            }
+            consumer.accept(negative ? result : -result);
+            count++;
+            i++;
+        }
+        return count;
+    }
+
+    private static int parse(byte[] bytes, int from, int to, byte separator, long min, long max, LongConsumer consumer) {
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            byte c = bytes[i];
+            while (c != separator && c <= ' ' && c >= 0 && ++i < to) {
+                c = bytes[i];
+            }
+            if (i == to) {
+                break;
+            }
+            if (c == separator) {
+                i++;
+                continue;
+            }
+            boolean negative = c == '-';
+            if (negative || c == '+') {
+                i++;
+            }
+            long limit = negative ? min : -max;
+            long multiplyMin = limit / 10;
+            long result = 0;
+            int digitsStart = i;
+            for (; i < to; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (result < multiplyMin) {
+                    return -i - 1;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    return -i - 1;
+                }
+                result -= digit;
+            }
+            if (i == digitsStart) {
+                return -i - 1;
+            }
+            while (i < to && (c = bytes[i]) != separator && c <= ' ' && c >= 0) {
+                i++;
+            }
+            if (i < to && bytes[i] != separator) {
+                return -i - 1;
+            }
+            consumer.accept(negative ? result : -result);
+            count++;
+            i++;
+        }
+        return count;
+    }
+
+    /**
+     * 收集到原始类型数组，按需扩容
+     */
+    private static final class LongCollector implements LongConsumer {
+
+        private long[] values;
+        private int size;
+
+        private LongCollector(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(8, size << 1));
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+    }
+
+}
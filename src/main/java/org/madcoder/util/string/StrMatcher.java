@@ -0,0 +1,415 @@
+package org.madcoder.util.string;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 预编译的多模式字符串匹配器，一次构建，多次匹配，适用于大量固定前缀（如 URL 白名单）的匹配
+ * <p>
+ * 与逐个调用 {@link cn.hutool.core.util.StrUtil#startWith(CharSequence, CharSequence)} 相比，
+ * 匹配耗时只与输入长度相关，与模式数量无关：
+ * 1. 前缀匹配：在模式构成的 Trie 上逐字符前进
+ * 2. 后缀匹配：在反转模式构成的 Trie 上从输入末尾逐字符后退
+ * 3. 包含匹配：在前缀 Trie 上加入失败指针（Aho-Corasick 自动机），对输入做一次扫描
+ * <p>
+ * Trie 的所有转移存放在一张以 (节点, 字符) 为 key 的开放寻址表中，没有逐节点的对象与装箱。
+ * 构建完成后不可变，线程安全。
+ *
+ * @author madcoder
+ */
+public final class StrMatcher {
+
+    private final boolean ignoreCase;
+    /**
+     * 去重后的模式，下标即模式编号
+     */
+    private final String[] patterns;
+    private final Trie forward;
+    private final Trie backward;
+
+    private StrMatcher(Collection<String> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        String[] accepted = new String[patterns.size()];
+        int count = 0;
+        Trie forward = new Trie(patterns.size() * 8);
+        Trie backward = new Trie(patterns.size() * 8);
+        for (String pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            // 忽略大小写时，仅大小写不同的模式视为同一个，保留第一个
+            if (forward.insert(pattern, false, count, ignoreCase)) {
+                backward.insert(pattern, true, count, ignoreCase);
+                accepted[count++] = pattern;
+            }
+        }
+        this.patterns = Arrays.copyOf(accepted, count);
+        forward.buildFailLinks();
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    /**
+     * 编译匹配器，区分大小写
+     *
+     * @param patterns 模式，null 元素会被忽略
+     * @return 匹配器
+     */
+    public static StrMatcher of(String... patterns) {
+        return new StrMatcher(Arrays.asList(patterns), false);
+    }
+
+    /**
+     * 编译匹配器，区分大小写
+     *
+     * @param patterns 模式，null 元素会被忽略
+     * @return 匹配器
+     */
+    public static StrMatcher of(Collection<String> patterns) {
+        return new StrMatcher(patterns, false);
+    }
+
+    /**
+     * 编译匹配器
+     *
+     * @param patterns   模式，null 元素会被忽略
+     * @param ignoreCase 是否忽略大小写
+     * @return 匹配器
+     */
+    public static StrMatcher of(Collection<String> patterns, boolean ignoreCase) {
+        return new StrMatcher(patterns, ignoreCase);
+    }
+
+    /**
+     * @return 去重后的模式数量
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * 判断字符串是否以任意一个模式开头，遇到第一个匹配的模式即返回
+     *
+     * @param str 字符串，为 null 时返回 false
+     * @return 是否匹配
+     */
+    public boolean startWith(CharSequence str) {
+        if (str == null) {
+            return false;
+        }
+        Trie trie = forward;
+        int node = 0;
+        for (int i = 0, length = str.length(); ; i++) {
+            if (trie.terminal[node] >= 0) {
+                return true;
+            }
+            if (i == length || (node = trie.child(node, fold(str.charAt(i)))) < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 获得字符串开头匹配的最长模式
+     *
+     * @param str 字符串，为 null 时返回 null
+     * @return 匹配的模式，没有匹配时返回 null
+     */
+    public String matchPrefix(CharSequence str) {
+        if (str == null) {
+            return null;
+        }
+        Trie trie = forward;
+        int node = 0;
+        int matched = trie.terminal[0];
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if ((node = trie.child(node, fold(str.charAt(i)))) < 0) {
+                break;
+            }
+            if (trie.terminal[node] >= 0) {
+                matched = trie.terminal[node];
+            }
+        }
+        return matched >= 0 ? patterns[matched] : null;
+    }
+
+    /**
+     * 判断字符串是否以任意一个模式结尾，遇到第一个匹配的模式即返回
+     *
+     * @param str 字符串，为 null 时返回 false
+     * @return 是否匹配
+     */
+    public boolean endWith(CharSequence str) {
+        if (str == null) {
+            return false;
+        }
+        Trie trie = backward;
+        int node = 0;
+        for (int i = str.length() - 1; ; i--) {
+            if (trie.terminal[node] >= 0) {
+                return true;
+            }
+            if (i < 0 || (node = trie.child(node, fold(str.charAt(i)))) < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 获得字符串结尾匹配的最长模式
+     *
+     * @param str 字符串，为 null 时返回 null
+     * @return 匹配的模式，没有匹配时返回 null
+     */
+    public String matchSuffix(CharSequence str) {
+        if (str == null) {
+            return null;
+        }
+        Trie trie = backward;
+        int node = 0;
+        int matched = trie.terminal[0];
+        for (int i = str.length() - 1; i >= 0; i--) {
+            if ((node = trie.child(node, fold(str.charAt(i)))) < 0) {
+                break;
+            }
+            if (trie.terminal[node] >= 0) {
+                matched = trie.terminal[node];
+            }
+        }
+        return matched >= 0 ? patterns[matched] : null;
+    }
+
+    /**
+     * 判断字符串是否包含任意一个模式
+     *
+     * @param str 字符串，为 null 时返回 false
+     * @return 是否匹配
+     */
+    public boolean contains(CharSequence str) {
+        return matchContains(str) != null;
+    }
+
+    /**
+     * 获得字符串中最先出现的模式：结束位置最靠前，结束位置相同时取最长的
+     *
+     * @param str 字符串，为 null 时返回 null
+     * @return 匹配的模式，没有匹配时返回 null
+     */
+    public String matchContains(CharSequence str) {
+        if (str == null) {
+            return null;
+        }
+        Trie trie = forward;
+        if (trie.output[0] >= 0) {
+            return patterns[trie.output[0]];
+        }
+        int node = 0;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            char c = fold(str.charAt(i));
+            int next;
+            // 沿失败指针回退，直到存在该字符的转移或回到根节点
+            while ((next = trie.child(node, c)) < 0 && node != 0) {
+                node = trie.fail[node];
+            }
+            node = Math.max(next, 0);
+            if (trie.output[node] >= 0) {
+                return patterns[trie.output[node]];
+            }
+        }
+        return null;
+    }
+
+    private char fold(char c) {
+        // 与 String#regionMatches(ignoreCase) 的比较规则一致
+        return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+    }
+
+    /**
+     * 数组形式的 Trie，节点用 int 编号，根节点为 0
+     */
+    private static final class Trie {
+
+        private static final long EMPTY = -1L;
+
+        /**
+         * 转移表：key 为 节点编号 &lt;&lt; 16 | 字符，value 为子节点编号
+         */
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int transitions;
+
+        /**
+         * 每个节点结尾的模式编号，-1 表示不是模式结尾
+         */
+        private int[] terminal;
+        private int[] parent;
+        private char[] label;
+        private int[] depth;
+        private int nodes;
+
+        /**
+         * Aho-Corasick 的失败指针与输出：output 为在该节点结束的最长模式，包括沿失败指针可达的模式
+         */
+        private int[] fail;
+        private int[] output;
+
+        private Trie(int expectedNodes) {
+            int capacity = Math.max(16, expectedNodes);
+            terminal = new int[capacity];
+            parent = new int[capacity];
+            label = new char[capacity];
+            depth = new int[capacity];
+            Arrays.fill(terminal, -1);
+            nodes = 1;
+            resize(tableSize(capacity));
+        }
+
+        /**
+         * @return 是否为新模式
+         */
+        private boolean insert(String pattern, boolean reverse, int index, boolean ignoreCase) {
+            int node = 0;
+            int length = pattern.length();
+            for (int i = 0; i < length; i++) {
+                char c = pattern.charAt(reverse ? length - 1 - i : i);
+                if (ignoreCase) {
+                    c = Character.toLowerCase(Character.toUpperCase(c));
+                }
+                int next = child(node, c);
+                node = next >= 0 ? next : addChild(node, c);
+            }
+            if (terminal[node] >= 0) {
+                return false;
+            }
+            terminal[node] = index;
+            return true;
+        }
+
+        private int child(int node, char c) {
+            long key = ((long) node << 16) | c;
+            long[] keys = this.keys;
+            int i = hash(key) & mask;
+            long k;
+            while ((k = keys[i]) != EMPTY) {
+                if (k == key) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int addChild(int node, char c) {
+            if (nodes == terminal.length) {
+                int capacity = nodes << 1;
+                terminal = Arrays.copyOf(terminal, capacity);
+                Arrays.fill(terminal, nodes, capacity, -1);
+                parent = Arrays.copyOf(parent, capacity);
+                label = Arrays.copyOf(label, capacity);
+                depth = Arrays.copyOf(depth, capacity);
+            }
+            int child = nodes++;
+            parent[child] = node;
+            label[child] = c;
+            depth[child] = depth[node] + 1;
+            // 负载因子不超过 0.5
+            if (++transitions * 2 > keys.length) {
+                resize(keys.length << 1);
+            }
+            put(((long) node << 16) | c, child);
+            return child;
+        }
+
+        private void put(long key, int value) {
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void resize(int size) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[size];
+            values = new int[size];
+            mask = size - 1;
+            Arrays.fill(keys, EMPTY);
+            if (oldKeys != null) {
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != EMPTY) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 按深度从小到大计算失败指针，保证处理某个节点时，其父节点的失败指针已经确定
+         */
+        private void buildFailLinks() {
+            fail = new int[nodes];
+            output = new int[nodes];
+            output[0] = terminal[0];
+            // 按深度计数排序
+            int maxDepth = 0;
+            for (int i = 0; i < nodes; i++) {
+                maxDepth = Math.max(maxDepth, depth[i]);
+            }
+            int[] start = new int[maxDepth + 2];
+            for (int i = 0; i < nodes; i++) {
+                start[depth[i] + 1]++;
+            }
+            for (int d = 1; d < start.length; d++) {
+                start[d] += start[d - 1];
+            }
+            int[] order = new int[nodes];
+            for (int i = 0; i < nodes; i++) {
+                order[start[depth[i]]++] = i;
+            }
+            for (int i = 1; i < nodes; i++) {
+                int node = order[i];
+                int f = 0;
+                if (parent[node] != 0) {
+                    // 沿父节点的失败指针寻找存在同一字符转移的节点
+                    int p = fail[parent[node]];
+                    while (true) {
+                        int next = child(p, label[node]);
+                        if (next >= 0) {
+                            f = next;
+                            break;
+                        }
+                        if (p == 0) {
+                            break;
+                        }
+                        p = fail[p];
+                    }
+                }
+                fail[node] = f;
+                output[node] = terminal[node] >= 0 ? terminal[node] : output[f];
+            }
+            // 构建完成后不再需要
+            parent = null;
+            label = null;
+            depth = null;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private static int tableSize(int expected) {
+            int size = Integer.highestOneBit(Math.max(expected, 8) - 1) << 2;
+            return Math.max(size, 16);
+        }
+
+    }
+
+}
@@ -3,6 +3,7 @@ package org.madcoder.util.string;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.StrUtil;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -15,6 +16,8 @@ import java.util.stream.Collectors;
  */
 public class StrUtils {
 
+    private static final String ELLIPSIS = "...";
+
     /**
      * 截取字符串，保留指定长度，超过部分用省略号表示。
      * @param str 要截取的字符串
@@ -29,6 +32,208 @@ public class StrUtils {
 
 
 
+    /**
+     * 计算字符串按 UTF-8 编码后的字节数，不进行实际编码。
+     * 与 {@link String#getBytes(java.nio.charset.Charset)} 一致，不成对的代理字符按 '?' 计 1 个字节。
+     * @param str 字符串，为 null 时返回 0
+     * @return UTF-8 字节数
+     */
+    public static int utf8Length(CharSequence str) {
+        if (str == null) {
+            return 0;
+        }
+        int bytes = 0;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (isSurrogatePair(str, i, length)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 按 UTF-8 字节数截取字符串，不会截断在一个字符的中间（包括代理对）。
+     * 只扫描到预算用完的位置，不编码整个字符串。
+     * @param str 要截取的字符串
+     * @param maxBytes 最大字节数
+     * @return 截取后的字符串，未超出时返回原字符串
+     */
+    public static String truncateUtf8(CharSequence str, int maxBytes) {
+        if (str == null) {
+            return null;
+        }
+        int end = utf8End(str, maxBytes, maxBytes);
+        return end < 0 ? str.toString() : str.subSequence(0, end).toString();
+    }
+
+    /**
+     * 按 UTF-8 字节数截取字符串，超过部分用省略号表示，与 {@link #maxLength(CharSequence, int)} 对应。
+     * @param str 要截取的字符串
+     * @param maxBytes 最大字节数（包括省略号的 3 个字节），不超过 3 时不追加省略号
+     * @return 截取后的字符串，未超出时返回原字符串
+     */
+    public static String maxUtf8Length(CharSequence str, int maxBytes) {
+        if (str == null) {
+            return null;
+        }
+        if (maxBytes <= ELLIPSIS.length()) {
+            return truncateUtf8(str, maxBytes);
+        }
+        int end = utf8End(str, maxBytes, maxBytes - ELLIPSIS.length());
+        if (end < 0) {
+            return str.toString();
+        }
+        return new StringBuilder(end + ELLIPSIS.length()).append(str, 0, end).append(ELLIPSIS).toString();
+    }
+
+    /**
+     * 将按 UTF-8 字节数截取后的字符串直接追加到 StringBuilder，不创建中间字符串。
+     * @param builder 目标
+     * @param str 要截取的字符串，为 null 时不追加
+     * @param maxBytes 最大字节数
+     * @return 追加部分的 UTF-8 字节数
+     */
+    public static int appendUtf8Truncated(StringBuilder builder, CharSequence str, int maxBytes) {
+        if (str == null) {
+            return 0;
+        }
+        int length = str.length();
+        int bytes = 0;
+        int end = 0;
+        while (end < length) {
+            char c = str.charAt(end);
+            int charCount = 1;
+            int size;
+            if (c < 0x80) {
+                size = 1;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (isSurrogatePair(str, end, length)) {
+                size = 4;
+                charCount = 2;
+            } else {
+                size = Character.isSurrogate(c) ? 1 : 3;
+            }
+            if (bytes + size > maxBytes) {
+                break;
+            }
+            bytes += size;
+            end += charCount;
+        }
+        builder.append(str, 0, end);
+        return bytes;
+    }
+
+    /**
+     * 将字符串按 UTF-8 编码写入 ByteBuffer，超出 maxBytes 或 buffer 剩余空间的部分被截断，
+     * 不会截断在一个字符的中间。直接编码写入，不创建 byte[]。
+     * @param buffer 目标
+     * @param str 要写入的字符串，为 null 时不写入
+     * @param maxBytes 最大字节数
+     * @return 写入的字节数
+     */
+    public static int writeUtf8Truncated(ByteBuffer buffer, CharSequence str, int maxBytes) {
+        if (str == null) {
+            return 0;
+        }
+        int budget = Math.min(maxBytes, buffer.remaining());
+        int written = 0;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                if (written + 1 > budget) {
+                    break;
+                }
+                buffer.put((byte) c);
+                written++;
+            } else if (c < 0x800) {
+                if (written + 2 > budget) {
+                    break;
+                }
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+                written += 2;
+            } else if (isSurrogatePair(str, i, length)) {
+                if (written + 4 > budget) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+                written += 4;
+            } else if (Character.isSurrogate(c)) {
+                if (written + 1 > budget) {
+                    break;
+                }
+                buffer.put((byte) '?');
+                written++;
+            } else {
+                if (written + 3 > budget) {
+                    break;
+                }
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+                written += 3;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 单次扫描，找到截取位置
+     * @param maxBytes 整个字符串允许的最大字节数
+     * @param truncatedBytes 超出时截取部分允许的最大字节数
+     * @return 截取位置（字符下标）；未超出 maxBytes 时返回 -1
+     */
+    private static int utf8End(CharSequence str, int maxBytes, int truncatedBytes) {
+        int length = str.length();
+        // 每个 char 最多 3 个字节，一定不会超出
+        if ((long) length * 3 <= maxBytes) {
+            return -1;
+        }
+        int bytes = 0;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            int charCount = 1;
+            int size;
+            if (c < 0x80) {
+                size = 1;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (isSurrogatePair(str, i, length)) {
+                size = 4;
+                charCount = 2;
+            } else {
+                size = Character.isSurrogate(c) ? 1 : 3;
+            }
+            bytes += size;
+            if (bytes > maxBytes) {
+                return end;
+            }
+            if (bytes <= truncatedBytes) {
+                end = i + charCount;
+            }
+            i += charCount - 1;
+        }
+        return -1;
+    }
+
+    private static boolean isSurrogatePair(CharSequence str, int i, int length) {
+        return Character.isHighSurrogate(str.charAt(i)) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1));
+    }
+
     /**
      * 检查字符串是否以集合中任何一个元素作为前缀开头。
      * @param str 要检查的字符串
@@ -48,6 +253,46 @@ public class StrUtils {
         return false;
     }
 
+    /**
+     * 检查字符串是否以匹配器中任何一个模式作为前缀开头，耗时与前缀数量无关。
+     * 前缀较多且需要反复匹配时，预先用 {@link StrMatcher#of(Collection)} 编译后调用本方法。
+     * @param str 要检查的字符串
+     * @param prefixes 编译后的前缀匹配器
+     * @return 如果字符串以任何一个前缀开头，则返回 true，否则返回 false
+     */
+    public static boolean startWithAny(String str, StrMatcher prefixes) {
+        if (StrUtil.isEmpty(str) || prefixes == null) {
+            return false;
+        }
+        return prefixes.startWith(str);
+    }
+
+    /**
+     * 检查字符串是否以匹配器中任何一个模式作为后缀结尾，耗时与后缀数量无关。
+     * @param str 要检查的字符串
+     * @param suffixes 编译后的后缀匹配器
+     * @return 如果字符串以任何一个后缀结尾，则返回 true，否则返回 false
+     */
+    public static boolean endWithAny(String str, StrMatcher suffixes) {
+        if (StrUtil.isEmpty(str) || suffixes == null) {
+            return false;
+        }
+        return suffixes.endWith(str);
+    }
+
+    /**
+     * 检查字符串是否包含匹配器中任何一个模式，对字符串只扫描一次。
+     * @param str 要检查的字符串
+     * @param patterns 编译后的匹配器
+     * @return 如果字符串包含任何一个模式，则返回 true，否则返回 false
+     */
+    public static boolean containsAny(String str, StrMatcher patterns) {
+        if (StrUtil.isEmpty(str) || patterns == null) {
+            return false;
+        }
+        return patterns.contains(str);
+    }
+
     /**
      * 将包含数字的字符串按指定分隔符分割成长整型列表。
      * @param value 包含数字的字符串
@@ -59,6 +304,19 @@ public class StrUtils {
         return Arrays.stream(longs).boxed().collect(Collectors.toList());
     }
 
+    /**
+     * 将包含数字的字符串按指定分隔符分割成长整型数组，不创建子串，不装箱。
+     * 只接受十进制 ASCII 数字，只忽略 ASCII 空白；与 {@link #splitToLong(String, CharSequence)} 不同，
+     * 不支持 0x 十六进制、全角数字，也不忽略 U+00A0、U+3000 等空白。
+     * @param value 包含数字的字符串
+     * @param separator 分隔符
+     * @return 分割后的长整型数组
+     * @throws NumberFormatException 存在不合法的数字时抛出，包含出错的位置
+     */
+    public static long[] splitToLongArray(CharSequence value, char separator) {
+        return NumberTokenizer.splitToLongArray(value, separator);
+    }
+
     /**
      * 将包含数字的字符串按指定分隔符分割成整型列表。
      * @param value 包含数字的字符串
@@ -70,4 +328,17 @@ public class StrUtils {
         return Arrays.stream(integers).boxed().collect(Collectors.toList());
     }
 
+    /**
+     * 将包含数字的字符串按指定分隔符分割成整型数组，不创建子串，不装箱。
+     * 只接受十进制 ASCII 数字，只忽略 ASCII 空白；与 {@link #splitToInteger(String, CharSequence)} 不同，
+     * 不支持 0x 十六进制、全角数字，也不忽略 U+00A0、U+3000 等空白。
+     * @param value 包含数字的字符串
+     * @param separator 分隔符
+     * @return 分割后的整型数组
+     * @throws NumberFormatException 存在不合法的数字时抛出，包含出错的位置
+     */
+    public static int[] splitToIntArray(CharSequence value, char separator) {
+        return NumberTokenizer.splitToIntArray(value, separator);
+    }
+
 }